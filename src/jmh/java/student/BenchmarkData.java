@@ -0,0 +1,57 @@
+package student;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic catalogs for the benchmarks, from {@link CatalogGenerator} with a fixed seed so
+ * every run measures the same data.
+ */
+final class BenchmarkData {
+
+    /** private constructor as static class. */
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates a catalog of games.
+     *
+     * @param size the number of games.
+     * @return the games, with unique ids.
+     */
+    static List<BoardGame> games(int size) {
+        CatalogGenerator generator = new CatalogGenerator(size, CatalogGenerator.DEFAULT_SEED);
+        List<BoardGame> games = new ArrayList<>(size);
+        while (generator.hasNext()) {
+            games.add(generator.next());
+        }
+        return games;
+    }
+
+    /**
+     * Creates an indexed table of games.
+     *
+     * @param size the number of games.
+     * @return the table.
+     */
+    static GameTable table(int size) {
+        return CatalogGenerator.table(size, CatalogGenerator.DEFAULT_SEED).buildIndexes();
+    }
+
+    /**
+     * Writes a catalog of games to a temporary csv file.
+     *
+     * @param size the number of games.
+     * @return the file, deleted when the JVM exits.
+     * @throws IOException if the file cannot be written.
+     */
+    static Path csv(int size) throws IOException {
+        Path file = Files.createTempFile("games-" + size, ".csv");
+        file.toFile().deleteOnExit();
+        CatalogGenerator.writeCsv(size, CatalogGenerator.DEFAULT_SEED, file);
+        return file;
+    }
+}
@@ -0,0 +1,240 @@
+package student;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BoardGame#equals(Object)} and {@link BoardGame#hashCode()} against the commons-lang
+ * reflection versions they replaced, kept in {@link ReflectionGame}.
+ *
+ * Each benchmark runs on games that are equal to the ones in the set but not the same objects,
+ * as games loaded again are, so equals cannot stop at the identity check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EqualityBenchmark {
+    /** Number of games. */
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    /** The games. */
+    private BoardGame[] games;
+    /** Equal copies of the games. */
+    private BoardGame[] copies;
+    /** The games as reflection games. */
+    private BoardGame[] reflectionGames;
+    /** Equal copies of the reflection games. */
+    private BoardGame[] reflectionCopies;
+    /** The games in a set. */
+    private Set<BoardGame> set;
+    /** The reflection games in a set. */
+    private Set<BoardGame> reflectionSet;
+
+    /** Creates the games and fills the sets. */
+    @Setup
+    public void setUp() {
+        List<BoardGame> list = BenchmarkData.games(size);
+        games = new BoardGame[size];
+        copies = new BoardGame[size];
+        reflectionGames = new BoardGame[size];
+        reflectionCopies = new BoardGame[size];
+        for (int i = 0; i < size; i++) {
+            BoardGame game = list.get(i);
+            games[i] = game;
+            copies[i] = copy(game);
+            reflectionGames[i] = new ReflectionGame(game);
+            reflectionCopies[i] = new ReflectionGame(game);
+        }
+        set = new HashSet<>(List.of(games));
+        reflectionSet = new HashSet<>(List.of(reflectionGames));
+    }
+
+    /**
+     * Copies a game into a new object.
+     *
+     * @param game the game.
+     * @return an equal game.
+     */
+    private static BoardGame copy(BoardGame game) {
+        return new BoardGame(new String(game.getName()), game.getId(), game.getMinPlayers(),
+                game.getMaxPlayers(), game.getMinPlayTime(), game.getMaxPlayTime(),
+                game.getDifficulty(), game.getRank(), game.getRating(), game.getYearPublished());
+    }
+
+    /**
+     * Hash codes of every game, written by hand and cached.
+     *
+     * @return the sum of the hash codes.
+     */
+    @Benchmark
+    public int hashCodeHandWritten() {
+        return hashAll(games);
+    }
+
+    /**
+     * Hash codes of every game, by reflection.
+     *
+     * @return the sum of the hash codes.
+     */
+    @Benchmark
+    public int hashCodeReflection() {
+        return hashAll(reflectionGames);
+    }
+
+    /**
+     * Compares every game with its copy and its neighbour, written by hand.
+     *
+     * @return the number of equal pairs.
+     */
+    @Benchmark
+    public int equalsHandWritten() {
+        return compareAll(games, copies);
+    }
+
+    /**
+     * Compares every game with its copy and its neighbour, by reflection.
+     *
+     * @return the number of equal pairs.
+     */
+    @Benchmark
+    public int equalsReflection() {
+        return compareAll(reflectionGames, reflectionCopies);
+    }
+
+    /**
+     * Looks up a copy of every game in a hash set, written by hand.
+     *
+     * @return the number found.
+     */
+    @Benchmark
+    public int containsHandWritten() {
+        return findAll(set, copies);
+    }
+
+    /**
+     * Looks up a copy of every game in a hash set, by reflection.
+     *
+     * @return the number found.
+     */
+    @Benchmark
+    public int containsReflection() {
+        return findAll(reflectionSet, reflectionCopies);
+    }
+
+    /**
+     * Adds every game to a new hash set, written by hand.
+     *
+     * @return the set.
+     */
+    @Benchmark
+    public Set<BoardGame> hashSetHandWritten() {
+        return new HashSet<>(List.of(copies));
+    }
+
+    /**
+     * Adds every game to a new hash set, by reflection.
+     *
+     * @return the set.
+     */
+    @Benchmark
+    public Set<BoardGame> hashSetReflection() {
+        return new HashSet<>(List.of(reflectionCopies));
+    }
+
+    /**
+     * Sums hash codes.
+     *
+     * @param games the games.
+     * @return the sum.
+     */
+    private static int hashAll(BoardGame[] games) {
+        int sum = 0;
+        for (BoardGame game : games) {
+            sum += game.hashCode();
+        }
+        return sum;
+    }
+
+    /**
+     * Compares each game with an equal copy and with the next game.
+     *
+     * @param games  the games.
+     * @param copies equal copies of the games.
+     * @return the number of equal pairs.
+     */
+    private static int compareAll(BoardGame[] games, BoardGame[] copies) {
+        int equal = 0;
+        for (int i = 0; i < games.length; i++) {
+            equal += games[i].equals(copies[i]) ? 1 : 0;
+            equal += games[i].equals(copies[(i + 1) % copies.length]) ? 1 : 0;
+        }
+        return equal;
+    }
+
+    /**
+     * Counts the games found in a set.
+     *
+     * @param set   the set.
+     * @param games the games to look up.
+     * @return the number found.
+     */
+    private static int findAll(Set<BoardGame> set, BoardGame[] games) {
+        int found = 0;
+        for (BoardGame game : games) {
+            found += set.contains(game) ? 1 : 0;
+        }
+        return found;
+    }
+
+    /**
+     * A BoardGame with the equals and hashCode it had before they were written by hand, which
+     * reflect over every field but the excluded ones.
+     */
+    static final class ReflectionGame extends BoardGame {
+        /** Fields left out, as before, plus the cached hash that did not exist then. */
+        private static final List<String> EXCLUDED = List.of("minPlayers", "maxPlayers",
+                "maxPlayTime", "minPlayTime", "difficulty", "rank", "averageRating",
+                "yearPublished", "hash");
+
+        /**
+         * Copies a game.
+         *
+         * @param game the game.
+         */
+        ReflectionGame(BoardGame game) {
+            super(new String(game.getName()), game.getId(), game.getMinPlayers(),
+                    game.getMaxPlayers(), game.getMinPlayTime(), game.getMaxPlayTime(),
+                    game.getDifficulty(), game.getRank(), game.getRating(),
+                    game.getYearPublished());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return EqualsBuilder.reflectionEquals(this, obj, EXCLUDED);
+        }
+
+        @Override
+        public int hashCode() {
+            return HashCodeBuilder.reflectionHashCode(this, EXCLUDED);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package student;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link Planner#filter(String)} across filter shapes, each on a new session so no earlier
+ * filter narrows the rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+    /** Number of games. */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+    /** The filter: one numeric clause, several clauses, or a name search. */
+    @Param({"minPlayers>3", "minPlayers>=2,maxPlayers<=4,rating>7,yearPublished>2000",
+        "name~=castle"})
+    public String filter;
+
+    /** The catalog. */
+    private GameCatalog catalog;
+
+    /** Builds the catalog. */
+    @Setup
+    public void setUp() {
+        catalog = new GameCatalog(BenchmarkData.table(size));
+    }
+
+    /**
+     * Filters and reads every match, sorted on name.
+     *
+     * @param blackhole consumes the games.
+     */
+    @Benchmark
+    public void filterAll(Blackhole blackhole) {
+        catalog.newSession().filter(filter).forEach(blackhole::consume);
+    }
+
+    /**
+     * Filters and reads the first page of matches, sorted on name.
+     *
+     * @param blackhole consumes the games.
+     */
+    @Benchmark
+    public void filterPage(Blackhole blackhole) {
+        catalog.newSession().filter(filter, GameData.NAME, true, 20, 0)
+                .forEach(blackhole::consume);
+    }
+}
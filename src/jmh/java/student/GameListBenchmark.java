@@ -0,0 +1,147 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link GameList#addToList(String, java.util.stream.Stream)} and
+ * {@link GameList#removeFromList(String)} on lists holding every game of a catalog.
+ *
+ * Adding and removing change the list, so they do not reach a steady state: a second call to
+ * add a game is a no-op. Rather than rebuild a list of millions of games before every call, they
+ * run as single shots of {@link #BATCH} calls, on lists rebuilt before each iteration, and each
+ * call of a batch adds or removes a different game. Their score is the time of a whole batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class GameListBenchmark {
+    /** Calls in each batch of the benchmarks that change the list. */
+    static final int BATCH = 100;
+
+    /** Number of games. */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    /** The games, in name order as the planner hands them out. */
+    private List<BoardGame> games;
+    /** Names spread over the catalog, each naming different games. */
+    private String[] names;
+    /** Every game, for removals. */
+    private GameList full;
+    /** Every game but those with one of the names, for additions. */
+    private GameList partial;
+    /** Next name of the batch. */
+    private int next;
+
+    /** Creates the games and picks the names. */
+    @Setup
+    public void setUp() {
+        GameTable table = BenchmarkData.table(size);
+        games = new GameCatalog(table).newSession().filter("").toList();
+        // names compare ignoring case, so skip a name that matches one already picked
+        Set<String> seen = new HashSet<>();
+        List<String> picked = new ArrayList<>();
+        int step = Math.max(1, games.size() / BATCH);
+        for (int start = 0; start < step && picked.size() < BATCH; start++) {
+            for (int at = start; at < games.size() && picked.size() < BATCH; at += step) {
+                String name = games.get(at).getName();
+                if (seen.add(name.toLowerCase())) {
+                    picked.add(name);
+                }
+            }
+        }
+        names = picked.toArray(new String[0]);
+    }
+
+    /** Rebuilds the lists the batches change. */
+    @Setup(Level.Iteration)
+    public void fill() {
+        Set<String> missing = new HashSet<>();
+        for (String name : names) {
+            missing.add(name.toLowerCase());
+        }
+        full = new GameList();
+        full.addToList("all", games.stream());
+        partial = new GameList();
+        partial.addToList("all", games.stream()
+                .filter(game -> !missing.contains(game.getName().toLowerCase()))
+                .collect(Collectors.toList()));
+        next = 0;
+    }
+
+    /**
+     * Adds every game to an empty list.
+     *
+     * @return the list.
+     */
+    @Benchmark
+    public GameList addAll() {
+        GameList list = new GameList();
+        list.addToList("all", games.stream());
+        return list;
+    }
+
+    /**
+     * Adds, by name, a game not yet in a list of every other game.
+     *
+     * @return the list.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    public GameList addOneByName() {
+        partial.addToList(names[next++ % names.length], games.stream());
+        return partial;
+    }
+
+    /**
+     * Removes a range from the middle of a full list.
+     *
+     * @return the list.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    public GameList removeRange() {
+        int middle = full.count() / 2 + 1;
+        int length = Math.max(1, Math.min(100, size / (4 * BATCH)));
+        full.removeFromList(middle + "-" + (middle + length - 1));
+        return full;
+    }
+
+    /**
+     * Removes, by name, a game still in a full list.
+     *
+     * @return the list.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = BATCH)
+    @Measurement(iterations = 5, batchSize = BATCH)
+    public GameList removeOneByName() {
+        full.removeFromList(names[next++ % names.length]);
+        return full;
+    }
+}
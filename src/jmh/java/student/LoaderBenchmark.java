@@ -0,0 +1,102 @@
+package student;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading the catalog: the bundled csv through {@link GamesLoader#loadGamesFile(String)},
+ * synthetic csv files through the streaming and mapped loaders, and the hash set inserts every
+ * load does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LoaderBenchmark {
+
+    /**
+     * A synthetic catalog written to disk.
+     */
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        /** Number of games. */
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int size;
+        /** The csv file. */
+        Path file;
+        /** The games, to time hash set inserts alone. */
+        List<BoardGame> games;
+
+        /**
+         * Writes the catalog.
+         *
+         * @throws IOException if the file cannot be written.
+         */
+        @Setup
+        public void setUp() throws IOException {
+            file = BenchmarkData.csv(size);
+            games = BenchmarkData.games(size);
+        }
+    }
+
+    /**
+     * Loads the bundled collection into a set.
+     *
+     * @return the games.
+     */
+    @Benchmark
+    public Set<BoardGame> loadGamesFile() {
+        return GamesLoader.loadGamesFile("/collection.csv");
+    }
+
+    /**
+     * Loads a catalog on one thread.
+     *
+     * @param catalog the catalog.
+     * @return the table.
+     * @throws IOException if the file cannot be read.
+     */
+    @Benchmark
+    public GameTable loadTableSequential(Catalog catalog) throws IOException {
+        return GamesLoader.loadGameTable(catalog.file, ParallelSettings.SEQUENTIAL);
+    }
+
+    /**
+     * Loads a catalog in parallel mapped chunks.
+     *
+     * @param catalog the catalog.
+     * @return the table.
+     * @throws IOException if the file cannot be read.
+     */
+    @Benchmark
+    public GameTable loadTableParallel(Catalog catalog) throws IOException {
+        return GamesLoader.loadGameTable(catalog.file, ParallelSettings.defaults());
+    }
+
+    /**
+     * Adds every game to a hash set, as loading and the planner do.
+     *
+     * @param catalog the catalog.
+     * @return the set.
+     */
+    @Benchmark
+    public Set<BoardGame> hashSetOfGames(Catalog catalog) {
+        return new HashSet<>(catalog.games);
+    }
+}
@@ -0,0 +1,69 @@
+package student;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Sorting a filtered result on each sortable {@link GameData} column.
+ *
+ * The filter keeps about three quarters of the games and, as a new result, has no cached
+ * order, so every call sorts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class SortBenchmark {
+    /** Filter applied before sorting. */
+    private static final String FILTER = "minPlayers>1";
+
+    /** Number of games. */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+    /** Column to sort on. */
+    @Param({"NAME", "RATING", "DIFFICULTY", "RANK", "MIN_PLAYERS", "MAX_PLAYERS", "MIN_TIME",
+        "MAX_TIME", "YEAR"})
+    public GameData sortOn;
+
+    /** The catalog. */
+    private GameCatalog catalog;
+
+    /** Builds the catalog. */
+    @Setup
+    public void setUp() {
+        catalog = new GameCatalog(BenchmarkData.table(size));
+    }
+
+    /**
+     * Sorts the whole result, descending.
+     *
+     * @param blackhole consumes the games.
+     */
+    @Benchmark
+    public void sortAll(Blackhole blackhole) {
+        catalog.newSession().filter(FILTER, sortOn, false).forEach(blackhole::consume);
+    }
+
+    /**
+     * Sorts only the first page, descending.
+     *
+     * @param blackhole consumes the games.
+     */
+    @Benchmark
+    public void sortPage(Blackhole blackhole) {
+        catalog.newSession().filter(FILTER, sortOn, false, 20, 0).forEach(blackhole::consume);
+    }
+}
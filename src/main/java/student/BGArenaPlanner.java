@@ -1,5 +1,7 @@
 package student;
 
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Main entry point for the program.
@@ -16,10 +18,26 @@ public final class BGArenaPlanner {
     /**
      * Main entry point for the program.
      * 
-     * @param args command line arguments - not used at this time.
+     * @param args command line arguments - optionally the path of a csv file or a
+     *             {@link GameSnapshot} on disk to load instead of the bundled collection.
      */
     public static void main(String[] args) {
-        IPlanner planner = new Planner(GamesLoader.loadGamesFile(DEFAULT_COLLECTION));
+        GameTable table;
+        if (args.length > 0) {
+            try {
+                Path file = Path.of(args[0]);
+                table = args[0].endsWith(GameSnapshot.EXTENSION)
+                        ? GameSnapshot.read(file).buildIndexes()
+                        : GamesLoader.loadGameTable(file);
+            } catch (IOException e) {
+                System.err.println("Error reading file: " + e.getMessage());
+                return;
+            }
+        } else {
+            table = GamesLoader.loadGameTable(DEFAULT_COLLECTION);
+        }
+        GameCatalog catalog = new GameCatalog(table);
+        IPlanner planner = catalog.newSession();
         IGameList list = new GameList();
         ConsoleApp app = new ConsoleApp(list, planner);
         app.start();
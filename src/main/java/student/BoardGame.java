@@ -1,9 +1,7 @@
 package student;
 
 
-import java.util.List;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
+import java.util.Objects;
 
 /**
  * Data Class for the Board Game Object.
@@ -32,6 +30,8 @@ public class BoardGame {
     private final double averageRating;
     /** Year the game was published. */
     private final int yearPublished;
+    /** Hash of the name and id, worked out once as games live in hash sets. */
+    private final int hash;
 
     /**
      * Constructor for the BoardGame object.
@@ -59,6 +59,7 @@ public class BoardGame {
         this.rank = rank;
         this.averageRating = averageRating;
         this.yearPublished = yearPublished;
+        this.hash = 31 * id + Objects.hashCode(name);
     }
 
     /**
@@ -205,33 +206,36 @@ public class BoardGame {
     /**
      * Check if two BoardGame objects are equal.
      * 
-     * Two BoardGame objects are considered equal if all fields are equal, except for the following:
-     * - minPlayers - maxPlayers - maxPlayTime - minPlayTime - difficulty - rank - averageRating -
-     * yearPublished
+     * Two BoardGame objects are considered equal if their name and id are equal. The other
+     * fields (minPlayers, maxPlayers, maxPlayTime, minPlayTime, difficulty, rank, averageRating
+     * and yearPublished) are not compared.
      * 
      * @param obj object to compare
      * @return true if the objects are equal, false otherwise
      */
     @Override
     public boolean equals(Object obj) {
-        return EqualsBuilder.reflectionEquals(this, obj, // exclude the following fields
-                List.of("minPlayers", "maxPlayers", "maxPlayTime", "minPlayTime", "difficulty",
-                        "rank", "averageRating", "yearPublished"));
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        BoardGame other = (BoardGame) obj;
+        return id == other.id && hash == other.hash && Objects.equals(name, other.name);
     }
 
     /**
      * Get the hash code of the object.
      * 
-     * The hash code is based on all fields, except for the following: - minPlayers - maxPlayers -
-     * maxPlayTime - minPlayTime - difficulty - rank - averageRating - yearPublished
+     * The hash code is based on the name and id only, like {@link #equals(Object)}, and is
+     * worked out when the game is created.
      * 
      * @return hash code of the object
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this, // exclude the following fields
-                List.of("minPlayers", "maxPlayers", "maxPlayTime", "minPlayTime", "difficulty",
-                        "rank", "averageRating", "yearPublished"));
+        return hash;
     }
 
 
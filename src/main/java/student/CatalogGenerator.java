@@ -0,0 +1,302 @@
+package student;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded generator of synthetic board game catalogs, for scale testing.
+ *
+ * The same seed always gives the same games, so a catalog of any size can be recreated instead
+ * of stored. The columns follow the shape of the real collection rather than being uniform:
+ * <ul>
+ * <li>ratings are skewed, most games between 6 and 7.5 with a long tail of poor ones, and rank
+ * follows rating (about one game in ten is unranked, rank 0);</li>
+ * <li>years cluster in the last two decades, with fewer older games;</li>
+ * <li>most games are for 2 to 4 players;</li>
+ * <li>difficulty and play time go together;</li>
+ * <li>names come from a small vocabulary, so names repeat and contains filters match many
+ * games. A few names hold commas or quotes, as real names do.</li>
+ * </ul>
+ * Ids run from 1 up.
+ *
+ * Catalogs can be written as csv (streamed, so any size fits) or as a {@link GameSnapshot}.
+ */
+public final class CatalogGenerator {
+    /** Seed used when none is given. */
+    public static final long DEFAULT_SEED = 42;
+
+    /** Columns written to csv, named as in the collection file. */
+    private static final String CSV_HEADER = "objectname,objectid,average,avgweight,rank,"
+            + "minplayers,maxplayers,minplaytime,maxplaytime,yearpublished";
+    /** Adjectives used in names. */
+    private static final String[] ADJECTIVES = {"Lost", "Ancient", "Twilight", "Great", "Little",
+        "Mystic", "Forbidden", "Iron", "Golden", "Hidden", "Wild", "Crimson", "Silent", "Royal",
+        "Frozen", "Clockwork", "Sunken", "Last", "Brave", "Cosmic"};
+    /** Nouns used in names. */
+    private static final String[] NOUNS = {"Kingdom", "Empire", "Garden", "Railways", "Dungeon",
+        "Harbor", "Castle", "Island", "Frontier", "Galaxy", "Village", "Tower", "Expedition",
+        "Dragons", "Merchants", "Forest", "Pirates", "Temple", "Colony", "Heist", "Alchemists",
+        "Orchard", "Caverns", "Dynasty", "Legends"};
+    /** Subtitles of editions and expansions. */
+    private static final String[] SUBTITLES = {"Second Edition", "Deluxe Edition", "The Card Game",
+        "The Dice Game", "Big Box", "Legacy", "Duel"};
+    /** Most common player counts, minimum then maximum. */
+    private static final int[][] PLAYERS = {{2, 4}, {2, 4}, {2, 4}, {1, 4}, {2, 5}, {2, 6},
+        {3, 6}, {1, 5}, {2, 2}, {3, 5}, {1, 1}, {4, 8}, {2, 8}, {3, 4}};
+    /** Share of games without a rank. */
+    private static final double UNRANKED = 0.1;
+
+    /** Number of games generated. */
+    private final int size;
+    /** The random source. */
+    private final SplittableRandom random;
+    /** Id of the next game. */
+    private int nextId = 1;
+
+    /**
+     * Creates a generator of a catalog.
+     *
+     * @param size the number of games in the catalog, which ranks are spread over.
+     * @param seed the seed.
+     * @throws IllegalArgumentException if size is negative.
+     */
+    public CatalogGenerator(int size, long seed) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+        this.size = size;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Checks if the catalog has more games.
+     *
+     * @return true until size games were generated.
+     */
+    public boolean hasNext() {
+        return nextId <= size;
+    }
+
+    /**
+     * Generates the next game.
+     *
+     * @return the game.
+     * @throws IllegalStateException if every game was generated.
+     */
+    public BoardGame next() {
+        if (!hasNext()) {
+            throw new IllegalStateException("All " + size + " games generated");
+        }
+        int id = nextId++;
+
+        // one draw sets both rating and rank, so better rated games rank higher
+        double quality = random.nextDouble();
+        double rating = round(3 + 6.5 * triangular(quality, 0.6), 100_000);
+        int rank = random.nextDouble() < UNRANKED ? 0
+                : 1 + (int) ((1 - quality) * size * (1 - UNRANKED));
+
+        double difficulty = round(1 + 4 * triangular(random.nextDouble(), 0.3), 10_000);
+        int minTime = roundTime(15 * Math.exp((difficulty - 1) * 0.7)
+                * random.nextDouble(0.6, 1.4));
+        int maxTime = random.nextDouble() < 0.5 ? minTime
+                : roundTime(minTime * random.nextDouble(1.2, 2.5));
+        int[] players = PLAYERS[random.nextInt(PLAYERS.length)];
+
+        return new BoardGame(name(), id, players[0], players[1], minTime, maxTime, difficulty,
+                rank, rating, year());
+    }
+
+    /**
+     * Generates a table of games.
+     *
+     * @param size the number of games.
+     * @param seed the seed.
+     * @return the table, without indexes.
+     */
+    public static GameTable table(int size, long seed) {
+        CatalogGenerator generator = new CatalogGenerator(size, seed);
+        GameTable.Builder builder = new GameTable.Builder(size);
+        while (generator.hasNext()) {
+            builder.add(generator.next());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes a catalog as csv, in the columns of the collection file.
+     *
+     * @param size the number of games.
+     * @param seed the seed.
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeCsv(int size, long seed, Path file) throws IOException {
+        CatalogGenerator generator = new CatalogGenerator(size, seed);
+        StringBuilder line = new StringBuilder(128);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+            while (generator.hasNext()) {
+                BoardGame game = generator.next();
+                line.setLength(0);
+                appendName(line, game.getName());
+                line.append(',').append(game.getId())
+                        .append(',').append(game.getRating())
+                        .append(',').append(game.getDifficulty())
+                        .append(',').append(game.getRank())
+                        .append(',').append(game.getMinPlayers())
+                        .append(',').append(game.getMaxPlayers())
+                        .append(',').append(game.getMinPlayTime())
+                        .append(',').append(game.getMaxPlayTime())
+                        .append(',').append(game.getYearPublished())
+                        .append('\n');
+                out.append(line);
+            }
+        }
+    }
+
+    /**
+     * Writes a catalog as a {@link GameSnapshot}.
+     *
+     * @param size the number of games.
+     * @param seed the seed.
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeSnapshot(int size, long seed, Path file) throws IOException {
+        GameSnapshot.write(table(size, seed), file);
+    }
+
+    /**
+     * Writes a catalog from the command line.
+     *
+     * The format follows the extension of the file: {@link GameSnapshot#EXTENSION} for a
+     * snapshot, csv otherwise.
+     *
+     * @param args the number of games, the file to write, and optionally the seed.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: CatalogGenerator <games> <file> [seed]");
+            return;
+        }
+        try {
+            int size = Integer.parseInt(args[0]);
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+            Path file = Path.of(args[1]);
+            if (args[1].endsWith(GameSnapshot.EXTENSION)) {
+                writeSnapshot(size, seed, file);
+            } else {
+                writeCsv(size, seed, file);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid argument: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error writing file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Picks a name from the vocabulary.
+     *
+     * @return the name.
+     */
+    private String name() {
+        String noun = pick(NOUNS);
+        double shape = random.nextDouble();
+        String name;
+        if (shape < 0.25) {
+            name = noun;
+        } else if (shape < 0.6) {
+            name = pick(ADJECTIVES) + " " + noun;
+        } else if (shape < 0.8) {
+            name = "The " + pick(ADJECTIVES) + " " + noun;
+        } else if (shape < 0.99) {
+            name = noun + " of the " + pick(ADJECTIVES) + " " + pick(NOUNS);
+        } else if (shape < 0.997) {
+            name = noun + ", " + pick(NOUNS) + " & " + pick(NOUNS);
+        } else {
+            name = "\"" + pick(ADJECTIVES) + "\" " + noun;
+        }
+        if (random.nextDouble() < 0.08) {
+            name += ": " + pick(SUBTITLES);
+        }
+        return name;
+    }
+
+    /**
+     * Picks a year: most games are recent, with fewer the further back.
+     *
+     * @return the year published.
+     */
+    private int year() {
+        double era = random.nextDouble();
+        if (era < 0.05) {
+            return 1950 + random.nextInt(40);
+        } else if (era < 0.2) {
+            return 1990 + random.nextInt(15);
+        }
+        int year = 2024 - (int) (-Math.log(1 - random.nextDouble()) * 5);
+        return Math.max(2005, year);
+    }
+
+    /**
+     * Picks a word.
+     *
+     * @param words the words.
+     * @return one of them.
+     */
+    private String pick(String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+
+    /**
+     * Maps a uniform value onto a triangular distribution over 0 to 1.
+     *
+     * @param u    the uniform value.
+     * @param mode the most likely value.
+     * @return the value.
+     */
+    private static double triangular(double u, double mode) {
+        return u < mode ? Math.sqrt(u * mode) : 1 - Math.sqrt((1 - u) * (1 - mode));
+    }
+
+    /**
+     * Rounds to a number of decimal places.
+     *
+     * @param value the value.
+     * @param scale ten to the number of decimal places.
+     * @return the rounded value.
+     */
+    private static double round(double value, int scale) {
+        return Math.round(value * scale) / (double) scale;
+    }
+
+    /**
+     * Rounds a play time to a multiple of 5 minutes, at least 5.
+     *
+     * @param minutes the play time.
+     * @return the rounded play time.
+     */
+    private static int roundTime(double minutes) {
+        return Math.max(5, (int) Math.round(minutes / 5) * 5);
+    }
+
+    /**
+     * Appends a name as a csv field, quoting it if needed.
+     *
+     * @param line the line.
+     * @param name the name.
+     */
+    private static void appendName(StringBuilder line, String name) {
+        if (name.indexOf(',') < 0 && name.indexOf('"') < 0) {
+            line.append(name);
+            return;
+        }
+        line.append('"').append(name.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,374 @@
+package student;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps a {@link GameCatalog} in step with a csv file on disk.
+ *
+ * Each reload streams the file again, but only parses the rows that changed: every line is
+ * keyed by a hash of its bytes (checked against its game id), and a line seen before reuses the
+ * BoardGame of the current version, also when several rows share an id. The sort orders are not sorted again either: the unchanged rows are read
+ * off the orders of the current version and merged with the changed rows, sorted on their own,
+ * and the name order of the name index is merged the same way. A line that moved ahead of lines
+ * it used to follow counts as changed for this. The indexes are then read off the merged orders
+ * in linear passes. The new catalog is built on the reloading thread and then published with
+ * one atomic swap, so queries never pause; sessions from {@link #newSession()} pick it up on
+ * their next call.
+ *
+ * {@link #start()} watches the file with a WatchService and reloads in the background after
+ * changes settle. A reload that fails (a missing file, a bad header) keeps the current catalog.
+ */
+public final class CatalogReloader implements AutoCloseable {
+    /** Default quiet time after a change before reloading, in milliseconds. */
+    public static final long DEFAULT_SETTLE_MILLIS = 200;
+
+    /** FNV-1a 64 bit offset basis. */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    /** FNV-1a 64 bit prime. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** The watched csv file. */
+    private final Path file;
+    /** Compiled filters, shared across versions as they do not depend on the data. */
+    private final FilterCache filterCache;
+    /** Parallel settings of every version. */
+    private final ParallelSettings settings;
+    /** Quiet time after a change before reloading. */
+    private final long settleMillis;
+    /** The latest catalog. */
+    private final AtomicReference<GameCatalog> current = new AtomicReference<>();
+    /** Game and row of each line in the latest version, by line hash. Used while reloading. */
+    private Map<Long, KnownRow> known = new HashMap<>();
+    /** Number of catalogs published. */
+    private volatile long version;
+    /** Rows parsed by the last reload. */
+    private volatile int parsedRows;
+    /** Rows reused by the last reload. */
+    private volatile int reusedRows;
+    /** Rows loaded and skipped by the last reload. */
+    private volatile LoadStats lastStats = new LoadStats();
+    /** Watch on the file's directory, null until started. */
+    private WatchService watchService;
+    /** Background thread reloading on changes. */
+    private Thread watcher;
+
+    /**
+     * Creates a reloader and loads the first version of the catalog.
+     *
+     * @param file the csv file to load and watch.
+     * @throws IOException if the file cannot be read.
+     */
+    public CatalogReloader(Path file) throws IOException {
+        this(file, new FilterCache(), ParallelSettings.defaults(), DEFAULT_SETTLE_MILLIS);
+    }
+
+    /**
+     * Creates a reloader and loads the first version of the catalog.
+     *
+     * @param file         the csv file to load and watch.
+     * @param filterCache  the cache of compiled filters for every version.
+     * @param settings     the parallel settings for every version.
+     * @param settleMillis how long the file must stay unchanged before a reload.
+     * @throws IOException if the file cannot be read.
+     */
+    public CatalogReloader(Path file, FilterCache filterCache, ParallelSettings settings,
+            long settleMillis) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.filterCache = filterCache;
+        this.settings = settings;
+        this.settleMillis = settleMillis;
+        reload();
+    }
+
+    /**
+     * Get the latest catalog.
+     *
+     * @return the catalog.
+     */
+    public GameCatalog current() {
+        return current.get();
+    }
+
+    /**
+     * Starts a planner session that follows the latest catalog.
+     *
+     * @return the session.
+     */
+    public Planner newSession() {
+        return new Planner(this::current);
+    }
+
+    /**
+     * Get the number of catalogs published so far, the first load included.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the number of rows the last reload had to parse.
+     *
+     * @return the parsed rows.
+     */
+    public int getParsedRows() {
+        return parsedRows;
+    }
+
+    /**
+     * Get the number of rows the last reload reused unchanged.
+     *
+     * @return the reused rows.
+     */
+    public int getReusedRows() {
+        return reusedRows;
+    }
+
+    /**
+     * Get the rows the last reload kept and skipped.
+     *
+     * @return the counts.
+     */
+    public LoadStats getLastStats() {
+        return lastStats;
+    }
+
+    /**
+     * Reloads the file now, publishing a new catalog if any row changed.
+     *
+     * @return true if a new catalog was published.
+     * @throws IOException if the file cannot be read; the current catalog is kept.
+     */
+    public synchronized boolean reload() throws IOException {
+        GameCatalog previous = current.get();
+        GameTable previousTable = previous == null ? null : previous.getTable();
+        Map<Long, KnownRow> previousRows = known;
+        Map<Long, KnownRow> rows = new HashMap<>();
+        GameTable.Builder builder = new GameTable.Builder(
+                previousTable == null ? 16 : previousTable.size());
+        int[] counts = new int[3]; // parsed, reused, rows added
+        int[][] previousRowOf = {new int[previousTable == null ? 0 : previousTable.size()]};
+        boolean[] changed = {previousTable == null};
+        LoadStats stats = new LoadStats();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            GameCsvParser.readLines(in, GameCsvParser.DEFAULT_BUFFER_SIZE, stats,
+                    (parser, buf, from, to) -> {
+                        int id;
+                        try {
+                            id = parser.parseId(buf, from, to);
+                        } catch (NumberFormatException e) {
+                            parser.parseLine(buf, from, to); // counts why it is skipped
+                            return;
+                        }
+                        long hash = hash(buf, from, to);
+                        KnownRow row = previousRows.get(hash);
+                        BoardGame game;
+                        if (row != null && row.game.getId() == id) {
+                            game = row.game;
+                            counts[1]++;
+                        } else {
+                            game = parser.parseLine(buf, from, to);
+                            if (game == null) {
+                                return;
+                            }
+                            counts[0]++;
+                        }
+                        if (!builder.addIfAbsent(game)) {
+                            stats.skipped(LoadStats.Reason.DUPLICATE);
+                            return;
+                        }
+                        stats.loaded();
+                        if (previousRowOf[0].length == counts[2]) {
+                            previousRowOf[0] = Arrays.copyOf(previousRowOf[0],
+                                    Math.max(16, counts[2] * 2));
+                        }
+                        previousRowOf[0][counts[2]] = row != null && row.game == game
+                                ? row.row : -1;
+                        rows.putIfAbsent(hash, new KnownRow(game, counts[2]));
+                        if (!changed[0] && (counts[2] >= previousTable.size()
+                                || previousTable.getGame(counts[2]) != game)) {
+                            changed[0] = true;
+                        }
+                        counts[2]++;
+                    });
+        }
+        parsedRows = counts[0];
+        reusedRows = counts[1];
+        lastStats = stats;
+        if (!changed[0] && counts[2] == previousTable.size()) {
+            return false;
+        }
+        GameTable table = previousTable == null ? builder.build().buildIndexes()
+                : merge(builder, previousTable, previousRowOf[0], counts[2]);
+        known = rows;
+        current.set(new GameCatalog(table, filterCache, settings));
+        version++;
+        return true;
+    }
+
+    /**
+     * Builds the new version of the table, merging its orders and name order with those of the
+     * previous version.
+     *
+     * @param builder       the rows of the new version.
+     * @param previous      the previous version.
+     * @param previousRowOf previous row of each new row reusing one, -1 for changed rows.
+     * @param size          the number of new rows.
+     * @return the new table, indexed.
+     */
+    private static GameTable merge(GameTable.Builder builder, GameTable previous,
+            int[] previousRowOf, int size) {
+        int[] newRowOf = new int[previous.size()];
+        Arrays.fill(newRowOf, -1);
+        int[] added = new int[size];
+        int addedCount = 0;
+        int last = -1;
+        for (int row = 0; row < size; row++) {
+            int old = previousRowOf[row];
+            if (old > last) {
+                newRowOf[old] = row;
+                last = old;
+            } else {
+                // new, changed, or moved ahead of rows it used to follow
+                added[addedCount++] = row;
+            }
+        }
+        int[] addedRows = Arrays.copyOf(added, addedCount);
+        GameTable table = builder.build((next, col) ->
+                SortOrder.merge(next, col, previous.getSortOrder(col), newRowOf, addedRows));
+        return table.buildIndexes(NameIndex.mergeOrder(table, previous, newRowOf));
+    }
+
+    /**
+     * Starts watching the file, reloading in the background whenever it changes.
+     *
+     * @throws IOException if the directory of the file cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchService service = watchService;
+        watcher = new Thread(() -> watch(service), "catalog-reloader");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the file. The latest catalog stays available.
+     *
+     * @throws IOException if the watch cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+            watcher = null;
+        }
+    }
+
+    /**
+     * Waits for changes to the file and reloads once they settle, until the watch is closed.
+     *
+     * @param service the watch on the file's directory.
+     */
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                if (!touchesFile(service.take())) {
+                    continue;
+                }
+                // writers often touch the file several times, wait for a quiet moment
+                WatchKey more = service.poll(settleMillis, TimeUnit.MILLISECONDS);
+                while (more != null) {
+                    touchesFile(more);
+                    more = service.poll(settleMillis, TimeUnit.MILLISECONDS);
+                }
+                try {
+                    reload();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error reloading catalog: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed, stop watching
+        }
+    }
+
+    /**
+     * Checks the events of a watch key for the file, and rearms the key.
+     *
+     * @param key the signalled key.
+     * @return true if an event was for the file.
+     */
+    private boolean touchesFile(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                touched = true;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+
+    /**
+     * Hashes the bytes of a line with 64 bit FNV-1a.
+     *
+     * @param buf  the bytes.
+     * @param from start of the line.
+     * @param to   end of the line, exclusive.
+     * @return the hash.
+     */
+    private static long hash(ByteBuffer buf, int from, int to) {
+        long hash = FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ (buf.get(i) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * A line already parsed, and the game it gave.
+     */
+    private static final class KnownRow {
+        /** The game. */
+        private final BoardGame game;
+        /** Row of the game in the table. */
+        private final int row;
+
+        /**
+         * Creates a known row.
+         *
+         * @param game the game.
+         * @param row  the row of the game in the table.
+         */
+        KnownRow(BoardGame game, int row) {
+            this.game = game;
+            this.row = row;
+        }
+    }
+}
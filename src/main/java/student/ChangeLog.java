@@ -0,0 +1,441 @@
+package student;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of changes to the games, keyed by objectid.
+ *
+ * Each change is one record: its kind, the game (or just the id for a delete) and a CRC32. A
+ * crash can only tear the last record, so reading stops at the first record that is short or
+ * fails its checksum, and opening the log for writing cuts such a tail off.
+ *
+ * {@link #replay(GameTable, List)} applies changes to a loaded table without rebuilding it
+ * from scratch: the precomputed orders (and so the column indexes read off them) are merged
+ * with the few changed rows instead of sorted again, and {@link #replay(GameCatalog, List)}
+ * merges the name order of the name index the same way. {@link #compact(GameTable, Path)} folds the
+ * log into a fresh {@link GameSnapshot} and empties it. Changes are upserts and deletes by id,
+ * so replaying a log twice gives the same table, and a crash during compaction loses nothing.
+ */
+public final class ChangeLog implements AutoCloseable {
+    /** "BGCL". */
+    private static final int MAGIC = 0x4247434C;
+    /** Version written, and the only one read. */
+    private static final int VERSION = 1;
+    /** Bytes before the first record. */
+    private static final int HEADER_SIZE = 8;
+    /** Bytes buffered while reading the log. */
+    private static final int READ_BUFFER = 1 << 16;
+
+    /** The log file. */
+    private final Path file;
+    /** Open for appending. */
+    private final FileChannel channel;
+
+    /**
+     * What a change does.
+     */
+    public enum Kind {
+        /** Adds a game, replacing any with the same id. */
+        INSERT,
+        /** Replaces the games with the same id, adding it if there are none. */
+        UPDATE,
+        /** Removes the games with an id. */
+        DELETE
+    }
+
+    /**
+     * One change read from the log.
+     */
+    public static final class Change {
+        /** What the change does. */
+        private final Kind kind;
+        /** The objectid changed. */
+        private final int id;
+        /** The new game, null for a delete. */
+        private final BoardGame game;
+
+        /**
+         * Creates a change.
+         *
+         * @param kind what the change does.
+         * @param id   the objectid changed.
+         * @param game the new game, null for a delete.
+         */
+        Change(Kind kind, int id, BoardGame game) {
+            this.kind = kind;
+            this.id = id;
+            this.game = game;
+        }
+
+        /**
+         * Get what the change does.
+         *
+         * @return the kind.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Get the objectid changed.
+         *
+         * @return the id.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Get the new game.
+         *
+         * @return the game, null for a delete.
+         */
+        public BoardGame getGame() {
+            return game;
+        }
+    }
+
+    /**
+     * Opens a log for appending, creating it if needed and cutting off a torn last record.
+     *
+     * @param file the log file.
+     * @throws IOException if the file cannot be opened or is not a change log.
+     */
+    public ChangeLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        }
+        long end = validLength(file, new ArrayList<>());
+        if (end < channel.size()) {
+            channel.truncate(end);
+        }
+        channel.position(end);
+    }
+
+    /**
+     * Appends the insert of a game.
+     *
+     * @param game the new game.
+     * @throws IOException if the record cannot be written.
+     */
+    public void insert(BoardGame game) throws IOException {
+        append(Kind.INSERT, game.getId(), game);
+    }
+
+    /**
+     * Appends the update of a game, matched by its id.
+     *
+     * @param game the new values.
+     * @throws IOException if the record cannot be written.
+     */
+    public void update(BoardGame game) throws IOException {
+        append(Kind.UPDATE, game.getId(), game);
+    }
+
+    /**
+     * Appends the delete of the games with an id.
+     *
+     * @param id the objectid.
+     * @throws IOException if the record cannot be written.
+     */
+    public void delete(int id) throws IOException {
+        append(Kind.DELETE, id, null);
+    }
+
+    /**
+     * Forces the appended records to disk.
+     *
+     * @throws IOException if the file cannot be synced.
+     */
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Reads every complete change of the log.
+     *
+     * @return the changes, in the order they were appended.
+     * @throws IOException if the file cannot be read or is not a change log.
+     */
+    public List<Change> read() throws IOException {
+        sync();
+        return read(file);
+    }
+
+    /**
+     * Reads every complete change of a log file.
+     *
+     * @param file the log file.
+     * @return the changes, in the order they were appended.
+     * @throws IOException if the file cannot be read or is not a change log.
+     */
+    public static List<Change> read(Path file) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        validLength(file, changes);
+        return changes;
+    }
+
+    /**
+     * Applies changes to a table.
+     *
+     * Rows whose id has changed are dropped and the final version of each changed id is added
+     * at the end. The kept rows are copied column by column, with no BoardGame made for them in
+     * a compact table. The orders of the new table are merged from the orders of the old one, so
+     * the cost is one pass over each column plus sorting the changed rows.
+     *
+     * @param table   the table.
+     * @param changes the changes, oldest first.
+     * @return a new table with the changes (compact if the table is), or the same table if there
+     *         are none.
+     */
+    public static GameTable replay(GameTable table, List<Change> changes) {
+        if (changes.isEmpty()) {
+            return table;
+        }
+        Map<Integer, BoardGame> latest = latest(changes);
+        return replay(table, latest, newRowOf(table, latest));
+    }
+
+    /**
+     * Get the final version of each changed id.
+     *
+     * @param changes the changes, oldest first.
+     * @return the game of each changed id, null if deleted, in the order last changed.
+     */
+    private static Map<Integer, BoardGame> latest(List<Change> changes) {
+        // last change of each id wins
+        Map<Integer, BoardGame> latest = new LinkedHashMap<>();
+        for (Change change : changes) {
+            latest.remove(change.getId());
+            latest.put(change.getId(), change.getGame());
+        }
+        return latest;
+    }
+
+    /**
+     * Works out where the rows of a table go once changes are applied.
+     *
+     * @param table  the table.
+     * @param latest the final version of each changed id.
+     * @return the new row of each row, -1 for the rows of a changed id.
+     */
+    private static int[] newRowOf(GameTable table, Map<Integer, BoardGame> latest) {
+        int[] newRowOf = new int[table.size()];
+        int kept = 0;
+        for (int row = 0; row < table.size(); row++) {
+            newRowOf[row] = latest.containsKey(table.getId(row)) ? -1 : kept++;
+        }
+        return newRowOf;
+    }
+
+    /**
+     * Applies the final version of each changed id to a table.
+     *
+     * @param table    the table.
+     * @param latest   the final version of each changed id.
+     * @param newRowOf the new row of each row, from {@link #newRowOf(GameTable, Map)}.
+     * @return the new table.
+     */
+    private static GameTable replay(GameTable table, Map<Integer, BoardGame> latest,
+            int[] newRowOf) {
+        GameTable.Builder builder = new GameTable.Builder(table.size() + latest.size());
+        if (table.isCompact()) {
+            builder.compact();
+        }
+        int kept = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if (newRowOf[row] >= 0) {
+                builder.addRow(table, row);
+                kept++;
+            }
+        }
+        for (BoardGame game : latest.values()) {
+            if (game != null) {
+                builder.add(game);
+            }
+        }
+        int firstAdded = kept;
+        return builder.build((next, col) ->
+                SortOrder.merge(next, col, table.getSortOrder(col), newRowOf, firstAdded));
+    }
+
+    /**
+     * Applies changes to a catalog.
+     *
+     * The indexes of the new table are read off its merged orders, and the name order of its
+     * name index is merged from the old one, so no index is sorted again.
+     *
+     * @param catalog the catalog.
+     * @param changes the changes, oldest first.
+     * @return a new catalog sharing the filter cache and settings, indexed if the old one was.
+     */
+    public static GameCatalog replay(GameCatalog catalog, List<Change> changes) {
+        if (changes.isEmpty()) {
+            return catalog;
+        }
+        GameTable previous = catalog.getTable();
+        Map<Integer, BoardGame> latest = latest(changes);
+        int[] newRowOf = newRowOf(previous, latest);
+        GameTable table = replay(previous, latest, newRowOf);
+        if (previous.hasIndexes()) {
+            table.buildIndexes(NameIndex.mergeOrder(table, previous, newRowOf));
+        }
+        return new GameCatalog(table, catalog.getFilterCache(), catalog.getParallelSettings());
+    }
+
+    /**
+     * Folds the log into a snapshot and empties it.
+     *
+     * The snapshot is written (atomically) before the log is cut, so a crash in between only
+     * leaves changes that are already in the snapshot, and replaying them again is harmless.
+     * Appends wait while the log is compacted, so every record is either in the snapshot or
+     * left in the log.
+     *
+     * @param table    the table the log applies to.
+     * @param snapshot where to write the compacted table.
+     * @return the compacted table.
+     * @throws IOException if the log cannot be read or the snapshot written.
+     */
+    public synchronized GameTable compact(GameTable table, Path snapshot) throws IOException {
+        GameTable compacted = replay(table, read());
+        GameSnapshot.write(compacted, snapshot);
+        channel.truncate(HEADER_SIZE);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+        return compacted;
+    }
+
+    /**
+     * Closes the log.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes one record.
+     *
+     * @param kind the kind of change.
+     * @param id   the objectid.
+     * @param game the new game, null for a delete.
+     * @throws IOException if the record cannot be written.
+     */
+    private synchronized void append(Kind kind, int id, BoardGame game) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(kind.ordinal());
+        out.writeInt(id);
+        if (game != null) {
+            byte[] name = game.getName().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeInt(game.getMinPlayers());
+            out.writeInt(game.getMaxPlayers());
+            out.writeInt(game.getMinPlayTime());
+            out.writeInt(game.getMaxPlayTime());
+            out.writeDouble(game.getDifficulty());
+            out.writeInt(game.getRank());
+            out.writeDouble(game.getRating());
+            out.writeInt(game.getYearPublished());
+        }
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES * 2 + body.length);
+        record.putInt(body.length).put(body).putInt((int) crc.getValue()).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    /**
+     * Reads the records of a log file up to the first torn one.
+     *
+     * Records are streamed through a buffer, so the log is never held in memory whole, and a
+     * record length past the end of the file is taken as a torn record, not allocated.
+     *
+     * @param file    the log file.
+     * @param changes receives the complete changes.
+     * @return the length of the complete records, header included.
+     * @throws IOException if the file cannot be read or is not a change log.
+     */
+    private static long validLength(Path file, List<Change> changes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(channel), READ_BUFFER))) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || in.readInt() != MAGIC) {
+                throw new IOException("Not a change log: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported change log version: " + version);
+            }
+            Kind[] kinds = Kind.values();
+            byte[] body = new byte[64];
+            long end = HEADER_SIZE;
+            while (size - end >= Integer.BYTES) {
+                int length = in.readInt();
+                if (length < 1 + Integer.BYTES
+                        || size - end - Integer.BYTES < (long) length + Integer.BYTES) {
+                    break;
+                }
+                if (body.length < length) {
+                    body = new byte[Math.max(length, body.length * 2)];
+                }
+                in.readFully(body, 0, length);
+                CRC32 crc = new CRC32();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != in.readInt() || body[0] < 0
+                        || body[0] >= kinds.length) {
+                    break;
+                }
+
+                DataInputStream record = new DataInputStream(
+                        new ByteArrayInputStream(body, 1, length - 1));
+                Kind kind = kinds[body[0]];
+                int id = record.readInt();
+                BoardGame game = null;
+                if (kind != Kind.DELETE) {
+                    byte[] name = new byte[record.readInt()];
+                    record.readFully(name);
+                    game = new BoardGame(new String(name, StandardCharsets.UTF_8), id,
+                            record.readInt(), record.readInt(), record.readInt(),
+                            record.readInt(), record.readDouble(), record.readInt(),
+                            record.readDouble(), record.readInt());
+                }
+                changes.add(new Change(kind, id, game));
+                end += Integer.BYTES * 2 + length;
+            }
+            return end;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package student;
+
+import java.util.Arrays;
+
+/**
+ * Sorted secondary index over one numeric GameData column.
+ *
+ * Holds the row ids of the table ordered by the column value, next to the sorted values
+ * themselves. Range conditions ({@code >, >=, <, <=, ==}) are answered with two binary searches
+ * and come back as a contiguous slice of the sorted row ids.
+ */
+final class ColumnIndex {
+    /** Column the index is built on. */
+    private final GameData column;
+    /** Column values in ascending order. */
+    private final double[] sortedValues;
+    /** Row ids, in the same order as sortedValues. */
+    private final int[] rowIds;
+    /** Number of rows in the indexed table. */
+    private final int tableSize;
+
+    /**
+     * Creates an index from already sorted data.
+     *
+     * @param column       the column indexed.
+     * @param sortedValues ascending values.
+     * @param rowIds       row ids matching sortedValues.
+     * @param tableSize    number of rows in the table.
+     */
+    private ColumnIndex(GameData column, double[] sortedValues, int[] rowIds, int tableSize) {
+        this.column = column;
+        this.sortedValues = sortedValues;
+        this.rowIds = rowIds;
+        this.tableSize = tableSize;
+    }
+
+    /**
+     * Builds the index for a numeric column of a table.
+     *
+     * Rows whose value is NaN never match a comparison, so they are left out of the index.
+     *
+     * @param table  the table to index.
+     * @param column the numeric column.
+     * @return the index.
+     */
+    static ColumnIndex build(GameTable table, GameData column) {
+        // the precomputed order already sorts by Double.compare, NaN last
+        SortOrder order = table.getSortOrder(column);
+        int size = table.size();
+        double[] sorted = new double[size];
+        int[] rows = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int row = order.rowAt(i);
+            double value = table.getNumber(column, row) + 0.0; // folds -0.0 into 0.0
+            if (Double.isNaN(value)) {
+                break;
+            }
+            sorted[count] = value;
+            rows[count++] = row;
+        }
+        return new ColumnIndex(column, Arrays.copyOf(sorted, count), Arrays.copyOf(rows, count),
+                size);
+    }
+
+    /**
+     * Get the column the index is built on.
+     *
+     * @return the column.
+     */
+    GameData getColumn() {
+        return column;
+    }
+
+    /**
+     * Checks if an operator can be answered by the index.
+     *
+     * @param operator the operator.
+     * @return true for range and equality operators.
+     */
+    static boolean supports(Operations operator) {
+        return operator != Operations.NOT_EQUALS && operator != Operations.CONTAINS;
+    }
+
+    /**
+     * Finds the slice of the index matching a comparison.
+     *
+     * @param operator the comparison, must be {@link #supports(Operations) supported}.
+     * @param operand  the value to compare against.
+     * @return {from, to}, the half open range of positions in the index that match.
+     */
+    int[] range(Operations operator, double operand) {
+        int size = sortedValues.length;
+        if (Double.isNaN(operand)) {
+            return new int[] {0, 0};
+        }
+        switch (operator) {
+            case GREATER_THAN:
+                return new int[] {upperBound(operand), size};
+            case GREATER_THAN_EQUALS:
+                return new int[] {lowerBound(operand), size};
+            case LESS_THAN:
+                return new int[] {0, lowerBound(operand)};
+            case LESS_THAN_EQUALS:
+                return new int[] {0, upperBound(operand)};
+            case EQUALS:
+                return new int[] {lowerBound(operand), upperBound(operand)};
+            default:
+                throw new IllegalArgumentException("Index cannot answer " + operator);
+        }
+    }
+
+    /**
+     * Copies the row ids of a slice of the index.
+     *
+     * @param from first position, inclusive.
+     * @param to   last position, exclusive.
+     * @return the row ids, ordered by the column value.
+     */
+    int[] rows(int from, int to) {
+        return Arrays.copyOfRange(rowIds, from, to);
+    }
+
+    /**
+     * Builds a bitmap of the row ids in a slice of the index.
+     *
+     * @param from first position, inclusive.
+     * @param to   last position, exclusive.
+     * @return bitmap with those rows set.
+     */
+    RowBitmap bitmap(int from, int to) {
+        return RowBitmap.of(tableSize, rowIds, from, to);
+    }
+
+    /**
+     * First position whose value is greater than or equal to the operand.
+     *
+     * @param operand the value to search for.
+     * @return the position.
+     */
+    private int lowerBound(double operand) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedValues[mid] < operand) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First position whose value is greater than the operand.
+     *
+     * @param operand the value to search for.
+     * @return the position.
+     */
+    private int upperBound(double operand) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedValues[mid] <= operand) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,224 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A filter string compiled into its conditions.
+ *
+ * Commas between conditions are ANDs, so the compiled form is the list of conditions that
+ * actually filter something. Compiling is the only place the filter text is parsed.
+ */
+final class CompiledFilter {
+    /** A filter with no conditions, keeps every game. */
+    static final CompiledFilter EMPTY = new CompiledFilter(Collections.emptyList());
+
+    /** Conditions, all of which must match. */
+    private final List<FilterCondition> conditions;
+
+    /**
+     * Creates a compiled filter.
+     *
+     * @param conditions the conditions to AND together.
+     */
+    private CompiledFilter(List<FilterCondition> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Splits a filter string into its normalized conditions.
+     *
+     * Each condition is trimmed and has its spaces removed, which is also the text the
+     * compiled result is cached under.
+     *
+     * @param filter the filter text.
+     * @return the normalized conditions joined back with commas.
+     */
+    static String normalize(String filter) {
+        if (filter == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(filter.length());
+        for (String condition : filter.split(",")) {
+            String part = condition.trim().replace(" ", "");
+            if (!part.isEmpty()) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(part);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Compiles normalized filter text.
+     *
+     * @param normalized the filter, as returned by {@link #normalize(String)}.
+     * @return the compiled filter.
+     */
+    static CompiledFilter compile(String normalized) {
+        if (normalized.isEmpty()) {
+            return EMPTY;
+        }
+        List<FilterCondition> conditions = new ArrayList<>();
+        for (String part : normalized.split(",")) {
+            FilterCondition condition = FilterCondition.parse(part);
+            if (condition != null) {
+                conditions.add(condition);
+            }
+        }
+        return conditions.isEmpty() ? EMPTY
+                : new CompiledFilter(Collections.unmodifiableList(conditions));
+    }
+
+    /**
+     * Combines this filter with another, as applying one after the other would.
+     *
+     * Conditions already implied by one in this filter are dropped, and conditions of this
+     * filter that a new one implies are replaced by it (a tighter bound on the same column), so
+     * applying the same or narrower filters again does not grow the result.
+     *
+     * @param other the filter applied after this one.
+     * @return the combined filter.
+     */
+    CompiledFilter and(CompiledFilter other) {
+        if (other.isEmpty() || other == this) {
+            return this;
+        }
+        List<FilterCondition> merged = new ArrayList<>(conditions);
+        for (FilterCondition condition : other.conditions) {
+            boolean implied = false;
+            for (FilterCondition kept : merged) {
+                if (kept.implies(condition)) {
+                    implied = true;
+                    break;
+                }
+            }
+            if (!implied) {
+                merged.removeIf(condition::implies);
+                merged.add(condition);
+            }
+        }
+        return new CompiledFilter(Collections.unmodifiableList(merged));
+    }
+
+    /**
+     * Get the conditions of the filter.
+     *
+     * @return the conditions, unmodifiable.
+     */
+    List<FilterCondition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * Checks if the filter keeps every game.
+     *
+     * @return true if there are no conditions.
+     */
+    boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    /**
+     * Keeps the rows that match every condition.
+     *
+     * The most selective condition that an index can answer (a numeric range from a column
+     * index, or a name lookup from the name index) is turned into a bitmap straight from the
+     * index and ANDed in first. The remaining conditions are then checked one pass each, only on
+     * the rows still set.
+     *
+     * Tables at or above the parallel threshold check each remaining condition on several
+     * ranges of rows at once.
+     *
+     * @param table    the table the rows belong to.
+     * @param rows     the candidate rows, left untouched.
+     * @param settings when to split the work across threads.
+     * @return a new bitmap of the matching rows.
+     */
+    RowBitmap apply(GameTable table, RowBitmap rows, ParallelSettings settings) {
+        RowBitmap result = rows.copy();
+        if (conditions.isEmpty()) {
+            return result;
+        }
+
+        FilterCondition first = null;
+        if (table.hasIndexes()) {
+            int best = Integer.MAX_VALUE;
+            int[] bestRange = null;
+            int[] bestNames = null;
+            for (FilterCondition condition : conditions) {
+                if (condition.getColumn() == GameData.NAME) {
+                    int[] names = nameLookup(table.getNameIndex(), condition);
+                    int count = table.getNameIndex().rowCount(names);
+                    if (count < best) {
+                        best = count;
+                        bestNames = names;
+                        bestRange = null;
+                        first = condition;
+                    }
+                    continue;
+                }
+                int[] range = indexRange(table, condition);
+                if (range != null && range[1] - range[0] < best) {
+                    best = range[1] - range[0];
+                    bestRange = range;
+                    bestNames = null;
+                    first = condition;
+                }
+            }
+            if (bestRange != null) {
+                result.and(table.getIndex(first.getColumn()).bitmap(bestRange[0], bestRange[1]));
+            } else if (bestNames != null) {
+                result.and(table.getNameIndex().rows(bestNames, table.size()));
+            }
+        }
+        for (FilterCondition condition : conditions) {
+            if (result.isEmpty()) {
+                break;
+            }
+            if (condition == first) {
+                continue;
+            }
+            if (settings.isParallel(table.size())) {
+                boolean[] names = condition.matchingNames(table);
+                settings.forEachWordRange(result.words().length,
+                        (from, to) -> condition.andMatches(table, result, from, to, names));
+            } else {
+                condition.andMatches(table, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the names matching a NAME condition.
+     *
+     * @param index     the name index.
+     * @param condition the condition, contains or equals.
+     * @return the matching name ids.
+     */
+    private static int[] nameLookup(NameIndex index, FilterCondition condition) {
+        if (condition.getOperator() == Operations.CONTAINS) {
+            return index.containing(condition.getText());
+        }
+        return index.equalTo(condition.getText());
+    }
+
+    /**
+     * Looks up the slice of a column index matching a condition.
+     *
+     * @param table     the table holding the indexes.
+     * @param condition the condition.
+     * @return {from, to} positions in the index, or null if the condition is not indexed.
+     */
+    private static int[] indexRange(GameTable table, FilterCondition condition) {
+        if (!ColumnIndex.supports(condition.getOperator())) {
+            return null;
+        }
+        ColumnIndex index = table.getIndex(condition.getColumn());
+        return index == null ? null : index.range(condition.getOperator(), condition.getNumber());
+    }
+}
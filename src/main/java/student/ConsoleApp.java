@@ -1,9 +1,14 @@
 package student;
 
-import java.util.Collections;
-import java.util.List;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.Properties;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 import java.util.Random;
 
@@ -23,12 +28,17 @@ public class ConsoleApp {
     private static final String DEFAULT_FILENAME = "games_list.txt";
     /** random number generator only needs to be built once. */
     private static final Random RND = new Random();
+    /** Buffered writer for filter results, flushed after each result. */
+    private static final Writer OUT = new BufferedWriter(
+            new OutputStreamWriter(System.out, Charset.defaultCharset()), ResultRenderer.CHUNK);
     /** scanner to help with processing the command string. */
     private Scanner current;
     /** The game list to manage. */
     private final IGameList gameList;
     /** The planner to help filter games. */
     private final IPlanner planner;
+    /** The last background save of the list, null if none was started. */
+    private CompletableFuture<Path> pendingSave;
 
     /**
      * Constructor for the console app.
@@ -76,6 +86,9 @@ public class ConsoleApp {
             ct = nextCommand();
         }
 
+        if (pendingSave != null) {
+            pendingSave.join(); // let the last save finish, it may be on a daemon thread
+        }
         printOutput("%s%n", ConsoleText.GOODBYE);
     }
 
@@ -83,7 +96,7 @@ public class ConsoleApp {
      * Generate a random number based on the current filter.
      */
     private void randomNumber() {
-        int max = (int) planner.filter("").count();
+        int max = planner.currentResults().size();
         if (max > 0) {
             int random = RND.nextInt(max) + 1; // random is 0-(max-1) so add 1.
             printOutput("%s %d%n", ConsoleText.EASTER_EGG, random);
@@ -113,13 +126,25 @@ public class ConsoleApp {
 
     /**
      * Process the filter command.
+     *
+     * Output options ({@code --page}, {@code --limit}, {@code --format}) are taken out of the
+     * command first; see {@link ResultRenderer.Options}. When a page is asked for, the planner
+     * only sorts up to that page.
      */
     private void processFilter() {
-        Stream<BoardGame> result = null;
+        ResultRenderer.Options options;
+        try {
+            options = ResultRenderer.Options.parse(remainder());
+        } catch (IllegalArgumentException e) {
+            printOutput("%s%n", ConsoleText.INVALID);
+            return; // leave early.
+        }
         GameData sortON = GameData.NAME; // default
+        boolean ascending = true; // default
+        String filter = "";
 
-        if (current.hasNext()) {
-            String filter = remainder();
+        if (!options.text().isEmpty()) {
+            filter = options.text();
             filter = filter.replaceAll("\\s", ""); // remove spaces
             filter = filter.toLowerCase(); // make it lower case
             if (filter.equalsIgnoreCase(ConsoleText.CMD_QUESTION.toString())) {
@@ -134,7 +159,6 @@ public class ConsoleApp {
             }
             if (filter.contains(ConsoleText.CMD_SORT_OPTION.toString())) {
                 // break it up, figure out sort
-                boolean ascending = true; // default
                 String[] parts = filter.split(ConsoleText.CMD_SORT_OPTION.toString());
                 if (parts.length == 2) {
                     String sort = parts[1];
@@ -155,30 +179,32 @@ public class ConsoleApp {
                         return; // leave early.
                     }
                 }
-
-                result = planner.filter(parts[0], sortON, ascending);  // NOTICE: sortON and ascending are used here.
-            } else {
-                result = planner.filter(filter); // default sort
+                filter = parts[0];
             }
-        } else {
-            printOutput("%s%n", ConsoleText.NO_FILTER);
-            result = planner.filter("");
+        } else if (options.format() == ResultRenderer.Format.TEXT) {
+            printOutput("%s%n", ConsoleText.NO_FILTER); // kept out of tsv and json output
         }
-        printFilterStream(result, sortON);
+        // NOTICE: sortON and ascending are used here, and only the page shown is sorted.
+        Stream<BoardGame> result = planner.filter(filter, sortON, ascending, options.limit(),
+                options.offset());
+        printFilterStream(result, sortON, options);
     }
 
     /**
      * Print the filtered stream of games.
      * 
-     * @param games  the stream of games to print.
-     * @param sortON also is the column used for 'extra info' based on the sort
-     *               type.
+     * @param games   the stream of games to print.
+     * @param sortON  also is the column used for 'extra info' based on the sort
+     *                type.
+     * @param options the format, and the offset numbering starts after.
      */
-    private static void printFilterStream(Stream<BoardGame> games, GameData sortON) {
-        int counter = 1;
-        List<BoardGame> gameList = games != null ? games.toList() : Collections.emptyList();
-        for (BoardGame game : gameList) {
-            printOutput("%d: %s%n", counter++, game.toStringWithInfo(sortON));
+    private static void printFilterStream(Stream<BoardGame> games, GameData sortON,
+            ResultRenderer.Options options) {
+        ResultRenderer renderer = new ResultRenderer(OUT, options.format(), sortON);
+        try {
+            renderer.render(games, options.offset() + 1);
+        } catch (IOException e) {
+            System.err.println("Error writing output: " + e.getMessage());
         }
     }
 
@@ -203,7 +229,7 @@ public class ConsoleApp {
                         break;
                     }
                     try {
-                        gameList.addToList(toAdd, planner.filter(""));
+                        addToList(toAdd);
                     } catch (IllegalArgumentException e) {
                         printOutput("%s %s%n", ConsoleText.INVALID_LIST, toAdd);
                     }
@@ -225,7 +251,7 @@ public class ConsoleApp {
                         filename = DEFAULT_FILENAME;
                         break;
                     }
-                    gameList.saveGame(filename);
+                    saveList(filename);
                     break;
                 case CMD_QUESTION:
                 case CMD_HELP:
@@ -240,6 +266,45 @@ public class ConsoleApp {
         }
     }
 
+    /**
+     * Adds games from the current filter to the list, by name, position, range or all.
+     *
+     * A GameList reads the positions it needs straight off the planner's current result;
+     * other lists get the result as a stream.
+     *
+     * @param toAdd what to add.
+     * @throws IllegalArgumentException if it is not valid.
+     */
+    private void addToList(String toAdd) {
+        ResultView results = planner.currentResults();
+        if (gameList instanceof GameList) {
+            ((GameList) gameList).addToList(toAdd, results);
+        } else {
+            gameList.addToList(toAdd, results.stream());
+        }
+    }
+
+    /**
+     * Saves the list to a file.
+     *
+     * A GameList saves in the background, so a large list does not hold up the next command;
+     * errors are reported when the save finishes. Other lists save before returning.
+     *
+     * @param filename the file, gzip compressed if it ends in {@link GameList#GZIP_EXTENSION}.
+     */
+    private void saveList(String filename) {
+        if (!(gameList instanceof GameList)) {
+            gameList.saveGame(filename);
+            return;
+        }
+        pendingSave = ((GameList) gameList).saveGameAsync(filename).handle((file, error) -> {
+            if (error != null) {
+                System.err.println("Error writing file: " + error.getMessage());
+            }
+            return file;
+        });
+    }
+
     /**
      * Print the current list of games.
      */
@@ -0,0 +1,136 @@
+package student;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded least recently used cache of compiled filters, keyed by the filter text as given and
+ * by its normalized form.
+ *
+ * Repeated filters (the same dashboard query) are found by their text as given and skip
+ * parsing entirely; the same text with different spacing is normalized once and then found
+ * too. Hit and miss counts are kept so the cache size can be tuned.
+ *
+ * Safe to share between threads. Lookups hold a short lock on the map; compiling happens
+ * outside it, so two threads missing on the same text may both compile it.
+ */
+public final class FilterCache {
+    /** Default number of filter texts to keep. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** Maximum number of entries (filter texts). */
+    private final int capacity;
+    /** Access ordered map, the eldest entry is the least recently used. */
+    private final Map<String, CompiledFilter> entries;
+    /** Lookups answered from the cache. */
+    private final LongAdder hits = new LongAdder();
+    /** Lookups that had to compile. */
+    private final LongAdder misses = new LongAdder();
+
+    /** Creates a cache with the default capacity. */
+    public FilterCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity the maximum number of filter texts to keep.
+     */
+    public FilterCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledFilter> eldest) {
+                return size() > FilterCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the compiled form of a filter, compiling it on a miss.
+     *
+     * The text is looked up as given first, so a repeated filter is found without being
+     * normalized. Only on a miss is it normalized and looked up again; the compiled filter is
+     * then kept under both the text as given and the normalized text.
+     *
+     * @param filter the filter text.
+     * @return the compiled filter.
+     */
+    CompiledFilter get(String filter) {
+        if (filter == null || filter.isEmpty()) {
+            return CompiledFilter.EMPTY;
+        }
+        CompiledFilter compiled;
+        synchronized (entries) {
+            compiled = entries.get(filter);
+        }
+        if (compiled != null) {
+            hits.increment();
+            return compiled;
+        }
+        String key = CompiledFilter.normalize(filter);
+        if (key.isEmpty()) {
+            return CompiledFilter.EMPTY;
+        }
+        if (!key.equals(filter)) {
+            synchronized (entries) {
+                compiled = entries.get(key);
+            }
+        }
+        if (compiled != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            compiled = CompiledFilter.compile(key);
+        }
+        synchronized (entries) {
+            entries.put(key, compiled);
+            entries.put(filter, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return the hit count.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups that had to compile the filter.
+     *
+     * @return the miss count.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of filter texts currently held. A filter typed with extra spaces is held
+     * under that text and its normalized text.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Get the maximum number of compiled filters held.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,283 @@
+package student;
+
+import java.util.Objects;
+
+/**
+ * A single parsed filter condition, such as {@code minPlayers>4}.
+ *
+ * The column, operator and operand are parsed once when the filter is compiled, so applying
+ * the condition only compares primitives (or the pre-lowered name) per row.
+ */
+final class FilterCondition {
+    /** Column the condition applies to. */
+    private final GameData column;
+    /** Comparison to perform. */
+    private final Operations operator;
+    /** Parsed operand for numeric columns. */
+    private final double number;
+    /** Lower case operand for the name column. */
+    private final String text;
+
+    /**
+     * Creates a condition.
+     *
+     * @param column   the column to filter on.
+     * @param operator the comparison.
+     * @param number   the numeric operand (ignored for NAME).
+     * @param text     the lower case operand (only used for NAME).
+     */
+    private FilterCondition(GameData column, Operations operator, double number, String text) {
+        this.column = column;
+        this.operator = operator;
+        this.number = number;
+        this.text = text;
+    }
+
+    /**
+     * Parses a single condition.
+     *
+     * Conditions that would not remove any game (unknown columns, missing operators, ID, non
+     * numeric values and so on) are ignored by the planner, so they parse to null.
+     *
+     * @param filter the condition text, spaces already removed.
+     * @return the parsed condition, or null if it would not filter anything.
+     */
+    static FilterCondition parse(String filter) {
+        Operations operator = Operations.getOperatorFromStr(filter);
+        if (operator == null) {
+            return null;
+        }
+
+        // Split filter string by the operator
+        String[] parts = filter.split(operator.getOperator());
+        if (parts.length != 2) {
+            return null;
+        }
+
+        GameData column;
+        try {
+            column = GameData.fromString(parts[0]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        String value = parts[1].trim();
+
+        if (column == GameData.ID) {
+            return null;
+        }
+        if (column == GameData.NAME) {
+            // only contains and equals apply to string fields
+            if (operator != Operations.CONTAINS && operator != Operations.EQUALS) {
+                return null;
+            }
+            return new FilterCondition(column, operator, 0, value.toLowerCase());
+        }
+        if (operator == Operations.CONTAINS) {
+            return null; // contains is ignored for numeric fields
+        }
+        try {
+            return new FilterCondition(column, operator, Double.parseDouble(value), null);
+        } catch (NumberFormatException e) {
+            return null; // Ignore if value is not a valid number
+        }
+    }
+
+    /**
+     * Get the column the condition applies to.
+     *
+     * @return the column.
+     */
+    GameData getColumn() {
+        return column;
+    }
+
+    /**
+     * Get the comparison of the condition.
+     *
+     * @return the operator.
+     */
+    Operations getOperator() {
+        return operator;
+    }
+
+    /**
+     * Get the numeric operand.
+     *
+     * @return the operand, meaningless for NAME conditions.
+     */
+    double getNumber() {
+        return number;
+    }
+
+    /**
+     * Get the lower case text operand.
+     *
+     * @return the operand, null for numeric conditions.
+     */
+    String getText() {
+        return text;
+    }
+
+    /**
+     * ANDs the rows matching the condition into a bitmap.
+     *
+     * Works a word at a time: the match bits of the rows still set in a word are collected,
+     * then intersected with the word. Rows already cleared are never looked at.
+     *
+     * @param table the table the rows belong to.
+     * @param rows  the candidate rows, narrowed in place.
+     */
+    void andMatches(GameTable table, RowBitmap rows) {
+        andMatches(table, rows, 0, rows.words().length, matchingNames(table));
+    }
+
+    /**
+     * Works out which names of a compact table match a NAME condition.
+     *
+     * A compact table decodes a name each time it is asked for, so the distinct names are
+     * checked once up front instead of once per row.
+     *
+     * @param table the table.
+     * @return match per name id, or null if the table is not compact or this is not a NAME
+     *         condition.
+     */
+    boolean[] matchingNames(GameTable table) {
+        if (column != GameData.NAME || !table.isCompact()) {
+            return null;
+        }
+        boolean[] matches = new boolean[table.nameCount()];
+        for (int id = 0; id < matches.length; id++) {
+            matches[id] = matchesName(table.getLowerDictionaryName(id));
+        }
+        return matches;
+    }
+
+    /**
+     * ANDs the rows matching the condition into a range of words of a bitmap.
+     *
+     * Only the words in the range are read or written, so disjoint ranges can run in parallel.
+     *
+     * @param table    the table the rows belong to.
+     * @param rows     the candidate rows, narrowed in place.
+     * @param fromWord first word, inclusive.
+     * @param toWord   last word, exclusive.
+     * @param names    the {@link #matchingNames(GameTable)} of the table.
+     */
+    void andMatches(GameTable table, RowBitmap rows, int fromWord, int toWord, boolean[] names) {
+        long[] words = rows.words();
+        boolean isName = column == GameData.NAME;
+        double[] decimals = GameTable.isDoubleColumn(column) ? table.doubleColumn(column) : null;
+        int[] values = !isName && decimals == null ? table.intColumn(column) : null;
+
+        for (int i = fromWord; i < toWord; i++) {
+            long word = words[i];
+            long match = 0;
+            int base = i << 6;
+            for (long bits = word; bits != 0; bits &= bits - 1) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                int row = base + bit;
+                boolean matches;
+                if (names != null) {
+                    matches = names[table.getNameId(row)];
+                } else if (isName) {
+                    matches = matchesName(table.getLowerName(row));
+                } else if (decimals != null) {
+                    matches = compare(decimals[row]);
+                } else {
+                    matches = compare(values[row]);
+                }
+                if (matches) {
+                    match |= 1L << bit;
+                }
+            }
+            words[i] = word & match;
+        }
+    }
+
+    /**
+     * Checks a lower case name against the condition.
+     *
+     * @param lowerName the lower case name.
+     * @return true if it matches.
+     */
+    boolean matchesName(String lowerName) {
+        return operator == Operations.CONTAINS ? lowerName.contains(text) : lowerName.equals(text);
+    }
+
+    /**
+     * Compares a value against the operand.
+     *
+     * @param value the column value (int fields widen to double).
+     * @return true if it matches.
+     */
+    boolean compare(double value) {
+        switch (operator) {
+            case EQUALS:
+                return value == number;
+            case NOT_EQUALS:
+                return value != number;
+            case GREATER_THAN:
+                return value > number;
+            case LESS_THAN:
+                return value < number;
+            case GREATER_THAN_EQUALS:
+                return value >= number;
+            case LESS_THAN_EQUALS:
+                return value <= number;
+            default:
+                return true; // Ignore invalid cases
+        }
+    }
+
+    /**
+     * Checks if every game matching this condition also matches another, so that the other
+     * adds nothing once this one is applied. True for equal conditions, and for two bounds of
+     * the same kind on a column where this one is as tight, such as {@code year>2000} and
+     * {@code year>1990}.
+     *
+     * @param other the other condition.
+     * @return true if this condition implies the other.
+     */
+    boolean implies(FilterCondition other) {
+        if (equals(other)) {
+            return true;
+        }
+        if (column != other.column || operator != other.operator || column == GameData.NAME) {
+            return false;
+        }
+        switch (operator) {
+            case GREATER_THAN:
+            case GREATER_THAN_EQUALS:
+                return number >= other.number;
+            case LESS_THAN:
+            case LESS_THAN_EQUALS:
+                return number <= other.number;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FilterCondition)) {
+            return false;
+        }
+        FilterCondition other = (FilterCondition) o;
+        return column == other.column && operator == other.operator
+                && Double.compare(number, other.number) == 0 && Objects.equals(text, other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, operator, number, text);
+    }
+
+    @Override
+    public String toString() {
+        return column + operator.getOperator() + (text != null ? text : String.valueOf(number));
+    }
+}
@@ -0,0 +1,474 @@
+package student;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable result of a progressive filter: the matching rows, plus their sorted order once it
+ * has been worked out.
+ *
+ * States are shared rather than copied. Reset points back at the table's full state, and an
+ * empty filter keeps the current state, both in O(1). Narrowing a state creates a new one; if the
+ * parent was already sorted, the child reuses that order (its rows are a subsequence of it), so
+ * refining a sorted result never sorts again.
+ *
+ * The only thing that changes after construction is the cached order, which is published as a
+ * single immutable {@link Ordering} (copy on write).
+ */
+final class FilterState {
+    /** Table the rows belong to. */
+    private final GameTable table;
+    /** When sorting is split across threads. */
+    private final ParallelSettings settings;
+    /** Matching rows. Never modified after construction. */
+    private final RowBitmap rows;
+    /** Number of matching rows. */
+    private final int count;
+    /** Full order of the parent state, a child can filter it instead of sorting. */
+    private volatile Ordering inherited;
+    /** Most recent full order of these rows, null until one is needed. */
+    private volatile Ordering ordering;
+
+    /**
+     * Creates a state.
+     *
+     * @param table     the table.
+     * @param settings  when sorting is split across threads.
+     * @param rows      the matching rows, owned by the state from now on.
+     * @param inherited order of the parent state, or null.
+     */
+    private FilterState(GameTable table, ParallelSettings settings, RowBitmap rows,
+            Ordering inherited) {
+        this.table = table;
+        this.settings = settings;
+        this.rows = rows;
+        this.count = rows.cardinality();
+        this.inherited = inherited;
+    }
+
+    /**
+     * Creates the state holding every row of a table.
+     *
+     * Its orders are the table's precomputed ones, so sorting it costs nothing.
+     *
+     * @param table    the table.
+     * @param settings when sorting is split across threads.
+     * @return the unfiltered state.
+     */
+    static FilterState all(GameTable table, ParallelSettings settings) {
+        return new FilterState(table, settings, RowBitmap.all(table.size()), null);
+    }
+
+    /**
+     * Narrows the state to the rows of a filter result.
+     *
+     * @param matches the rows that matched, a subset of this state. Owned by the new state.
+     * @return the narrowed state, or this state if nothing was removed.
+     */
+    FilterState narrow(RowBitmap matches) {
+        if (matches.cardinality() == count) {
+            return this;
+        }
+        return new FilterState(table, settings, matches, ordering);
+    }
+
+    /**
+     * Get the number of matching rows.
+     *
+     * @return the count.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Get the matching rows. Shared, do not modify.
+     *
+     * @return the rows.
+     */
+    RowBitmap rows() {
+        return rows;
+    }
+
+    /**
+     * Get a read only view of the matching games.
+     *
+     * @return the games, as a set that reads straight off the state.
+     */
+    Set<BoardGame> asSet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<BoardGame> iterator() {
+                return new Iterator<>() {
+                    private int next = rows.nextSetBit(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public BoardGame next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        BoardGame game = table.getGame(next);
+                        next = rows.nextSetBit(next + 1);
+                        return game;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Get a list view of the matching games in ascending name order.
+     *
+     * @return the view, reading straight off the state.
+     */
+    ResultView view() {
+        return new View();
+    }
+
+    /**
+     * Get one page of the rows in sorted order.
+     *
+     * Uses the cached order when it is on the same column (either direction). A request for
+     * the whole result computes the full order and caches it; a smaller page is selected
+     * without sorting everything.
+     *
+     * @param sortOn    the column to sort on, null to keep row order.
+     * @param ascending the sort direction.
+     * @param from      first position, inclusive.
+     * @param to        last position, exclusive. Must not be past count.
+     * @return the row ids of the page, in order. May be shared, do not modify.
+     */
+    int[] page(GameData sortOn, boolean ascending, int from, int to) {
+        return page(sortOn, ascending, from, to, true);
+    }
+
+    /**
+     * Get one page of the rows in sorted order, optionally leaving the cached order as it is.
+     *
+     * @param sortOn    the column to sort on, null to keep row order.
+     * @param ascending the sort direction.
+     * @param from      first position, inclusive.
+     * @param to        last position, exclusive. Must not be past count.
+     * @param cache     whether a full order worked out replaces the cached one.
+     * @return the row ids of the page, in order. May be shared, do not modify.
+     */
+    private int[] page(GameData sortOn, boolean ascending, int from, int to, boolean cache) {
+        if (sortOn == null) {
+            return Arrays.copyOfRange(rows.toArray(), from, to);
+        }
+        Ordering known = orderingOf(sortOn, cache);
+        if (known != null) {
+            return known.slice(ascending, from, to);
+        }
+        SortOrder order = table.getSortOrder(sortOn);
+        if (from >= to) {
+            return new int[0];
+        }
+        if (from == 0 && to == count) {
+            int[] sorted = select(order, ascending, count);
+            if (cache) {
+                ordering = new Ordering(sortOn, ascending, sorted);
+            }
+            return sorted;
+        }
+        return Arrays.copyOfRange(select(order, ascending, to), from, to);
+    }
+
+    /**
+     * Finds an already known full order of the rows on a column.
+     *
+     * @param sortOn the column.
+     * @param cache  whether an order found replaces the cached one.
+     * @return the order, or null if it has to be worked out.
+     */
+    private Ordering orderingOf(GameData sortOn, boolean cache) {
+        Ordering known = ordering;
+        if (known != null && known.column == sortOn) {
+            return known;
+        }
+        if (count == table.size() && GameTable.isSortable(sortOn)) {
+            // every row, the table's own order is the answer
+            known = new Ordering(sortOn, true, table.getSortOrder(sortOn).rows());
+            if (cache) {
+                ordering = known;
+            }
+            return known;
+        }
+        Ordering parent = inherited;
+        if (parent != null && parent.column == sortOn) {
+            // keep the parent's order, dropping the rows filtered out
+            int[] sorted = new int[count];
+            int next = 0;
+            for (int row : parent.rows) {
+                if (rows.get(row)) {
+                    sorted[next++] = row;
+                }
+            }
+            known = new Ordering(sortOn, parent.ascending, sorted);
+            if (cache) {
+                ordering = known;
+                inherited = null; // no longer needed, let the parent's order go
+            }
+            return known;
+        }
+        return null;
+    }
+
+    /**
+     * Works out the first rows in order from the table's precomputed order.
+     *
+     * A dense result is read straight off the sorted row ids (backwards for descending). A
+     * sparse result is turned into positions in that order, and those ints are sorted, or only
+     * the first ones kept in a bounded heap when that is a small part of the result.
+     *
+     * Large tables read the whole order in parallel ranges, or sort the positions with a
+     * parallel merge sort.
+     *
+     * @param order     the precomputed order of the sort column.
+     * @param ascending the sort direction.
+     * @param to        how many rows are needed.
+     * @return the first rows, in order.
+     */
+    private int[] select(SortOrder order, boolean ascending, int to) {
+        int size = order.size();
+        boolean parallel = settings.isParallel(size);
+        // walking the order visits about to * size / count rows to find them
+        if (parallel && to == count && (long) count * 4 >= size) {
+            return walkInParallel(order, ascending);
+        }
+        if ((long) to * size <= (long) count * count) {
+            int[] sorted = new int[to];
+            int seen = 0;
+            for (int i = 0; i < size && seen < to; i++) {
+                int row = order.rowAt(ascending ? i : size - 1 - i);
+                if (rows.get(row)) {
+                    sorted[seen++] = row;
+                }
+            }
+            return sorted;
+        }
+
+        int[] positions = new int[count];
+        int[] next = {0};
+        rows.forEach(row -> {
+            int position = order.positionOf(row);
+            positions[next[0]++] = ascending ? position : size - 1 - position;
+        });
+        int[] first;
+        if (to < count / 2) {
+            first = RowSorter.smallest(positions, to);
+        } else {
+            if (parallel) {
+                settings.sort(positions);
+            } else {
+                Arrays.sort(positions);
+            }
+            first = positions;
+        }
+
+        int[] sorted = new int[to];
+        for (int i = 0; i < to; i++) {
+            sorted[i] = order.rowAt(ascending ? first[i] : size - 1 - first[i]);
+        }
+        return sorted;
+    }
+
+    /**
+     * Reads every matching row off a precomputed order, splitting the order into ranges.
+     *
+     * Each range first counts its matches, so it knows where its rows go in the result, then
+     * copies them there. The ranges merge back in order without any locking.
+     *
+     * @param order     the precomputed order of the sort column.
+     * @param ascending the sort direction.
+     * @return every matching row, in order.
+     */
+    private int[] walkInParallel(SortOrder order, boolean ascending) {
+        int size = order.size();
+        int chunk = Math.max(1, size / (settings.getPool().getParallelism() * 4));
+        int chunks = (size + chunk - 1) / chunk;
+        int[] offsets = new int[chunks + 1];
+
+        settings.forEachRange(chunks, 1, (first, last) -> {
+            for (int c = first; c < last; c++) {
+                int matches = 0;
+                for (int i = c * chunk, end = Math.min(size, i + chunk); i < end; i++) {
+                    if (rows.get(order.rowAt(ascending ? i : size - 1 - i))) {
+                        matches++;
+                    }
+                }
+                offsets[c + 1] = matches;
+            }
+        });
+        for (int c = 0; c < chunks; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+
+        int[] sorted = new int[offsets[chunks]];
+        settings.forEachRange(chunks, 1, (first, last) -> {
+            for (int c = first; c < last; c++) {
+                int next = offsets[c];
+                for (int i = c * chunk, end = Math.min(size, i + chunk); i < end; i++) {
+                    int row = order.rowAt(ascending ? i : size - 1 - i);
+                    if (rows.get(row)) {
+                        sorted[next++] = row;
+                    }
+                }
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * The matching games in ascending name order, sorted only as far as positions are read.
+     *
+     * The view keeps its own name order rather than the state's cached order, so reading it
+     * neither sorts again on each call nor evicts the order a sorted filter left in the state.
+     */
+    private final class View extends ResultView {
+        /** Every matching row in name order, null until a single game is read. */
+        private volatile int[] byName;
+
+        @Override
+        public BoardGame get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + count);
+            }
+            return table.getGame(byName()[index]);
+        }
+
+        /**
+         * Get every matching row in name order, working it out on first use.
+         *
+         * @return the rows. Shared, do not modify.
+         */
+        private int[] byName() {
+            int[] sorted = byName;
+            if (sorted == null) {
+                sorted = page(GameData.NAME, true, 0, count, false);
+                byName = sorted;
+            }
+            return sorted;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Get a range of the games, selecting only the rows up to its end unless the full order
+         * is already known.
+         *
+         * @param from first position, inclusive.
+         * @param to   last position, exclusive.
+         * @return the games of the range.
+         */
+        @Override
+        public List<BoardGame> subList(int from, int to) {
+            if (from < 0 || to > count || from > to) {
+                throw new IndexOutOfBoundsException("Range: " + from + "-" + to + ", size: "
+                        + count);
+            }
+            int[] sorted = byName;
+            int[] slice = sorted != null ? Arrays.copyOfRange(sorted, from, to)
+                    : page(GameData.NAME, true, from, to, false);
+            return new AbstractList<>() {
+                @Override
+                public BoardGame get(int index) {
+                    return table.getGame(slice[index]);
+                }
+
+                @Override
+                public int size() {
+                    return slice.length;
+                }
+            };
+        }
+
+        /**
+         * Finds the games with a name through the name index, or by checking the lower case
+         * name of each row. Nothing is sorted.
+         *
+         * @param name the name.
+         * @return the games with that name, in row order.
+         */
+        @Override
+        public List<BoardGame> withName(String name) {
+            String lowerName = name.toLowerCase();
+            List<BoardGame> games = new ArrayList<>();
+            NameIndex index = table.getNameIndex();
+            if (index != null) {
+                index.rows(index.equalTo(lowerName), table.size()).and(rows)
+                        .forEach(row -> games.add(table.getGame(row)));
+            } else {
+                rows.forEach(row -> {
+                    if (table.getLowerName(row).equals(lowerName)) {
+                        games.add(table.getGame(row));
+                    }
+                });
+            }
+            return games;
+        }
+    }
+
+    /**
+     * A full sorted order of a state's rows.
+     */
+    private static final class Ordering {
+        /** Column sorted on. */
+        private final GameData column;
+        /** Direction of rows. */
+        private final boolean ascending;
+        /** Every row of the state, in order. Shared, never modified. */
+        private final int[] rows;
+
+        /**
+         * Creates an ordering.
+         *
+         * @param column    the column sorted on.
+         * @param ascending the direction of rows.
+         * @param rows      the sorted rows.
+         */
+        Ordering(GameData column, boolean ascending, int[] rows) {
+            this.column = column;
+            this.ascending = ascending;
+            this.rows = rows;
+        }
+
+        /**
+         * Reads a slice of the order in either direction.
+         *
+         * @param wantAscending the direction wanted.
+         * @param from          first position, inclusive.
+         * @param to            last position, exclusive.
+         * @return the row ids of the slice.
+         */
+        int[] slice(boolean wantAscending, int from, int to) {
+            if (wantAscending == ascending) {
+                return from == 0 && to == rows.length ? rows : Arrays.copyOfRange(rows, from, to);
+            }
+            int[] slice = new int[Math.max(to - from, 0)];
+            for (int i = from; i < to; i++) {
+                slice[i - from] = rows[rows.length - 1 - i];
+            }
+            return slice;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package student;
+
+import java.util.Set;
+
+/**
+ * Immutable, shareable snapshot of the loaded games.
+ *
+ * Holds everything that is the same for every user: the column store with its orders and
+ * indexes, the cache of compiled filters, and the unfiltered state. Each user gets a
+ * {@link Planner} session from {@link #newSession()}, which only holds a reference to its
+ * current {@link FilterState}, so any number of sessions (on any threads) can query one catalog
+ * without locks or copies of the data.
+ */
+public final class GameCatalog {
+    /** The games. */
+    private final GameTable table;
+    /** Compiled filters, shared by all sessions. */
+    private final FilterCache filterCache;
+    /** When filtering and sorting are split across threads. */
+    private final ParallelSettings settings;
+    /** State holding every game, the starting point of each session. */
+    private final FilterState allGames;
+
+    /**
+     * Creates a catalog over a table, with a default sized filter cache.
+     *
+     * @param table the games, with indexes already built if they are wanted.
+     */
+    public GameCatalog(GameTable table) {
+        this(table, new FilterCache(), ParallelSettings.defaults());
+    }
+
+    /**
+     * Creates a catalog over a table.
+     *
+     * @param table       the games, with indexes already built if they are wanted.
+     * @param filterCache the cache of compiled filters to share between sessions.
+     * @param settings    when filtering and sorting are split across threads.
+     */
+    public GameCatalog(GameTable table, FilterCache filterCache, ParallelSettings settings) {
+        this.table = table;
+        this.filterCache = filterCache;
+        this.settings = settings;
+        this.allGames = FilterState.all(table, settings);
+    }
+
+    /**
+     * Creates a catalog from a set of games, with indexes built, as the loaders build them.
+     *
+     * @param games the games.
+     * @return the catalog.
+     */
+    public static GameCatalog of(Set<BoardGame> games) {
+        return new GameCatalog(GameTable.fromGames(games).buildIndexes());
+    }
+
+    /**
+     * Starts a new planner session over this catalog, with no filters applied.
+     *
+     * @return the session.
+     */
+    public Planner newSession() {
+        return new Planner(this);
+    }
+
+    /**
+     * Get the games.
+     *
+     * @return the table.
+     */
+    public GameTable getTable() {
+        return table;
+    }
+
+    /**
+     * Get the cache of compiled filters shared by the sessions.
+     *
+     * @return the cache.
+     */
+    public FilterCache getFilterCache() {
+        return filterCache;
+    }
+
+    /**
+     * Get the settings for splitting work across threads.
+     *
+     * @return the parallel settings.
+     */
+    public ParallelSettings getParallelSettings() {
+        return settings;
+    }
+
+    /**
+     * Get the state with every game.
+     *
+     * @return the unfiltered state.
+     */
+    FilterState getAllGames() {
+        return allGames;
+    }
+}
@@ -0,0 +1,670 @@
+package student;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for the games csv file, working straight on bytes.
+ *
+ * The header is read once to work out which field holds each GameData column. After that each
+ * line is split in place, numbers are parsed from the bytes without building Strings, and only
+ * the name is decoded. Bytes are read from a {@link ByteBuffer} by absolute index, so a memory
+ * mapped file is parsed where it lies, and a stream goes through one reusable buffer (as long
+ * as the longest line). Lines are never collected, whatever the size of the file.
+ *
+ * Quoted fields follow RFC 4180: a field starting with a double quote runs to the matching
+ * closing quote, and may hold commas, line breaks and doubled ("") quotes. Lines without a quote
+ * at the start of a field never leave the plain comma split, so they cost no more than before.
+ * Rows that cannot be used are skipped and counted by reason in a {@link LoadStats}.
+ */
+final class GameCsvParser {
+    /** Default size of the read buffer. */
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /** Most significant digits the fast double path handles exactly. */
+    private static final int MAX_FAST_DIGITS = 15;
+    /** Powers of ten that are exact doubles, 10^0 to 10^22. */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /** Field index of each column, by ordinal. */
+    private final int[] fieldOf;
+    /** Number of leading fields a row needs. */
+    private final int fieldCount;
+    /** Start of each needed field of the current line. */
+    private final int[] starts;
+    /** End (exclusive) of each needed field of the current line. */
+    private final int[] ends;
+    /** Whether each needed field of the current line holds doubled quotes. */
+    private final boolean[] escaped;
+    /** Counts of skipped rows. */
+    private final LoadStats stats;
+
+    /**
+     * Creates a parser for a column layout.
+     *
+     * @param fieldOf field index of each column, by ordinal.
+     * @param stats   counts of skipped rows.
+     */
+    private GameCsvParser(int[] fieldOf, LoadStats stats) {
+        this.fieldOf = fieldOf;
+        this.fieldCount = Arrays.stream(fieldOf).max().orElse(-1) + 1;
+        this.starts = new int[fieldCount];
+        this.ends = new int[fieldCount];
+        this.escaped = new boolean[fieldCount];
+        this.stats = stats;
+    }
+
+    /**
+     * Creates a parser with the same column layout and counts, for use on another thread.
+     *
+     * @return the new parser.
+     */
+    GameCsvParser copy() {
+        return new GameCsvParser(fieldOf, stats);
+    }
+
+    /**
+     * Get the counts of the rows this parser skipped.
+     *
+     * @return the counts.
+     */
+    LoadStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Works out the column layout from the header line.
+     *
+     * The columns can be in any order, and unknown ones are ignored. If a column name appears
+     * twice the last one is used.
+     *
+     * @param buf   the bytes.
+     * @param from  start of the header line.
+     * @param to    end of the header line, exclusive.
+     * @param stats counts of the rows the parser skips.
+     * @return a parser for the rows that follow.
+     * @throws IllegalArgumentException if a GameData column is missing.
+     */
+    static GameCsvParser forHeader(ByteBuffer buf, int from, int to, LoadStats stats) {
+        if (to - from >= 3 && (buf.get(from) & 0xFF) == 0xEF && (buf.get(from + 1) & 0xFF) == 0xBB
+                && (buf.get(from + 2) & 0xFF) == 0xBF) {
+            from += 3; // byte order mark
+        }
+        GameData[] columns = GameData.values();
+        int[] fieldOf = new int[columns.length];
+        Arrays.fill(fieldOf, -1);
+        int field = 0;
+        int start = from;
+        boolean inQuotes = false;
+        for (int i = from; i <= to; i++) {
+            if (i < to && buf.get(i) == '"') {
+                inQuotes = !inQuotes;
+            } else if (i == to || buf.get(i) == ',' && !inQuotes) {
+                String name = string(buf, start, i, StandardCharsets.UTF_8);
+                if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                    name = name.substring(1, name.length() - 1).replace("\"\"", "\"");
+                }
+                for (GameData column : columns) {
+                    if (column.getColumnName().equals(name)) {
+                        fieldOf[column.ordinal()] = field;
+                    }
+                }
+                field++;
+                start = i + 1;
+            }
+        }
+        for (GameData column : columns) {
+            if (fieldOf[column.ordinal()] < 0) {
+                throw new IllegalArgumentException("Missing column: " + column.getColumnName());
+            }
+        }
+        return new GameCsvParser(fieldOf, stats);
+    }
+
+    /**
+     * Reads a whole csv stream, header first, handing each game to a sink.
+     *
+     * @param in   the stream, left open.
+     * @param sink receives the games in file order.
+     * @throws IOException if the stream cannot be read.
+     */
+    static void read(InputStream in, Consumer<BoardGame> sink) throws IOException {
+        read(in, DEFAULT_BUFFER_SIZE, new LoadStats(), sink);
+    }
+
+    /**
+     * Reads a whole csv stream, header first, handing each game to a sink.
+     *
+     * @param in         the stream, left open.
+     * @param bufferSize the starting size of the read buffer.
+     * @param stats      counts the rows skipped.
+     * @param sink       receives the games in file order.
+     * @throws IOException if the stream cannot be read.
+     */
+    static void read(InputStream in, int bufferSize, LoadStats stats, Consumer<BoardGame> sink)
+            throws IOException {
+        readLines(in, bufferSize, stats, (parser, buf, from, to) -> {
+            BoardGame game = parser.parseLine(buf, from, to);
+            if (game != null) {
+                sink.accept(game);
+            }
+        });
+    }
+
+    /**
+     * Reads a whole csv stream, header first, handing each data line to a sink unparsed.
+     *
+     * Lines end at a line feed, a carriage return or both, outside quoted fields. Blank lines
+     * are skipped. A line longer than the buffer grows it.
+     *
+     * @param in         the stream, left open.
+     * @param bufferSize the starting size of the read buffer.
+     * @param stats      counts the rows the parser skips.
+     * @param sink       receives the lines in file order.
+     * @throws IOException if the stream cannot be read.
+     */
+    static void readLines(InputStream in, int bufferSize, LoadStats stats, LineSink sink)
+            throws IOException {
+        byte[] buf = new byte[Math.max(bufferSize, 1)];
+        ByteBuffer view = ByteBuffer.wrap(buf);
+        GameCsvParser parser = null;
+        LineScanner lines = new LineScanner();
+        int start = 0; // first byte of the current line
+        int scan = 0; // next byte to check for a line end
+        int end = 0; // end of the bytes read so far
+        boolean eof = false;
+        while (true) {
+            scan = lines.lineEnd(view, scan, end);
+            if (scan < end) {
+                parser = handleLine(parser, view, start, scan, stats, sink);
+                start = ++scan;
+                lines.reset();
+                continue;
+            }
+            if (eof) {
+                handleLine(parser, view, start, end, stats, sink);
+                return;
+            }
+            if (start > 0) {
+                // keep only the partial line
+                System.arraycopy(buf, start, buf, 0, end - start);
+                end -= start;
+                scan -= start;
+                start = 0;
+            } else if (end == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                view = ByteBuffer.wrap(buf);
+            }
+            int read = in.read(buf, end, buf.length - end);
+            if (read < 0) {
+                eof = true;
+            } else {
+                end += read;
+            }
+        }
+    }
+
+    /**
+     * Handles one line: the header if no parser exists yet, a data line otherwise.
+     *
+     * @param parser the parser, or null before the header.
+     * @param buf    the bytes.
+     * @param from   start of the line.
+     * @param to     end of the line, exclusive.
+     * @param stats  counts the rows the parser skips.
+     * @param sink   receives the line, if it is not blank.
+     * @return the parser to use for the following lines.
+     */
+    private static GameCsvParser handleLine(GameCsvParser parser, ByteBuffer buf, int from,
+            int to, LoadStats stats, LineSink sink) {
+        if (parser == null) {
+            return from < to ? forHeader(buf, from, to, stats) : null;
+        }
+        if (from < to) {
+            sink.line(parser, buf, from, to);
+        }
+        return parser;
+    }
+
+    /**
+     * Parses every row in a range of bytes that holds whole lines.
+     *
+     * @param buf  the bytes.
+     * @param from start of the first line.
+     * @param to   end of the last line, exclusive. The last line ending is optional.
+     * @param sink receives the games in order.
+     */
+    void parseLines(ByteBuffer buf, int from, int to, Consumer<BoardGame> sink) {
+        LineScanner lines = new LineScanner();
+        for (int start = from; start <= to; lines.reset()) {
+            int end = lines.lineEnd(buf, start, to);
+            BoardGame game = parseLine(buf, start, end);
+            if (game != null) {
+                sink.accept(game);
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Parses one row.
+     *
+     * @param buf  the bytes.
+     * @param from start of the line.
+     * @param to   end of the line, exclusive, without the line ending.
+     * @return the game, or null if the line is blank or skipped (and counted).
+     */
+    BoardGame parseLine(ByteBuffer buf, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        LoadStats.Reason problem = split(buf, from, to);
+        if (problem != null) {
+            stats.skipped(problem);
+            return null;
+        }
+        try {
+            return new BoardGame(nameField(buf),
+                    intField(buf, GameData.ID), intField(buf, GameData.MIN_PLAYERS),
+                    intField(buf, GameData.MAX_PLAYERS), intField(buf, GameData.MIN_TIME),
+                    intField(buf, GameData.MAX_TIME), doubleField(buf, GameData.DIFFICULTY),
+                    intField(buf, GameData.RANK), doubleField(buf, GameData.RATING),
+                    intField(buf, GameData.YEAR));
+        } catch (NumberFormatException e) {
+            // skip if there is an issue
+            stats.skipped(LoadStats.Reason.BAD_NUMBER);
+            return null;
+        }
+    }
+
+    /**
+     * Parses only the id of a row, without building the game.
+     *
+     * @param buf  the bytes.
+     * @param from start of the line.
+     * @param to   end of the line, exclusive, without the line ending.
+     * @return the id.
+     * @throws NumberFormatException if the line cannot be split or the id is not a number.
+     */
+    int parseId(ByteBuffer buf, int from, int to) {
+        if (from >= to || split(buf, from, to) != null) {
+            throw new NumberFormatException("Not a game row");
+        }
+        return intField(buf, GameData.ID);
+    }
+
+    /**
+     * Finds the needed fields of a line.
+     *
+     * Splits on every comma until a field starts with a quote, and only then switches to the
+     * quote aware split.
+     *
+     * @param buf  the bytes.
+     * @param from start of the line.
+     * @param to   end of the line, exclusive. Must not be blank.
+     * @return null if every needed field was found, otherwise why the line is unusable.
+     */
+    private LoadStats.Reason split(ByteBuffer buf, int from, int to) {
+        int field = 0;
+        int start = from;
+        for (int i = from; i < to && field < fieldCount; i++) {
+            byte b = buf.get(i);
+            if (b == ',') {
+                starts[field] = start;
+                ends[field] = i;
+                escaped[field] = false;
+                field++;
+                start = i + 1;
+            } else if (b == '"' && i == start) {
+                return splitQuoted(buf, start, to, field);
+            }
+        }
+        if (field < fieldCount) {
+            starts[field] = start;
+            ends[field] = to;
+            escaped[field] = false;
+            field++;
+        }
+        return field == fieldCount ? null : LoadStats.Reason.TOO_FEW_FIELDS;
+    }
+
+    /**
+     * Finds the remaining needed fields of a line, following RFC 4180 quoting.
+     *
+     * @param buf   the bytes.
+     * @param from  start of the first field left.
+     * @param to    end of the line, exclusive.
+     * @param field index of the first field left.
+     * @return null if every needed field was found, otherwise why the line is unusable.
+     */
+    private LoadStats.Reason splitQuoted(ByteBuffer buf, int from, int to, int field) {
+        int i = from;
+        while (field < fieldCount) {
+            escaped[field] = false;
+            if (i < to && buf.get(i) == '"') {
+                int end = i + 1;
+                while (true) {
+                    if (end >= to) {
+                        return LoadStats.Reason.BAD_QUOTES;
+                    }
+                    if (buf.get(end) == '"') {
+                        if (end + 1 < to && buf.get(end + 1) == '"') {
+                            escaped[field] = true;
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    end++;
+                }
+                starts[field] = i + 1;
+                ends[field] = end;
+                i = end + 1;
+                if (i < to && buf.get(i) != ',') {
+                    return LoadStats.Reason.BAD_QUOTES;
+                }
+            } else {
+                int end = i;
+                while (end < to && buf.get(end) != ',') {
+                    end++;
+                }
+                starts[field] = i;
+                ends[field] = end;
+                i = end;
+            }
+            field++;
+            if (i >= to) {
+                break;
+            }
+            i++; // past the comma
+        }
+        return field == fieldCount ? null : LoadStats.Reason.TOO_FEW_FIELDS;
+    }
+
+    /**
+     * Decodes the name field of the current line, turning doubled quotes back into one.
+     *
+     * @param buf the bytes.
+     * @return the name.
+     */
+    private String nameField(ByteBuffer buf) {
+        int field = fieldOf[GameData.NAME.ordinal()];
+        int from = starts[field];
+        int to = ends[field];
+        if (!escaped[field]) {
+            return string(buf, from, to, StandardCharsets.UTF_8);
+        }
+        byte[] name = new byte[to - from];
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            name[length++] = buf.get(i);
+            if (buf.get(i) == '"') {
+                i++; // the second quote of the pair
+            }
+        }
+        return new String(name, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the int field of a column in the current line.
+     *
+     * @param buf    the bytes.
+     * @param column the column.
+     * @return the value.
+     */
+    private int intField(ByteBuffer buf, GameData column) {
+        int field = fieldOf[column.ordinal()];
+        return parseInt(buf, starts[field], ends[field]);
+    }
+
+    /**
+     * Parses the double field of a column in the current line.
+     *
+     * @param buf    the bytes.
+     * @param column the column.
+     * @return the value.
+     */
+    private double doubleField(ByteBuffer buf, GameData column) {
+        int field = fieldOf[column.ordinal()];
+        return parseDouble(buf, starts[field], ends[field]);
+    }
+
+    /**
+     * Parses an int from ascii bytes, accepting what Integer.parseInt accepts.
+     *
+     * @param buf  the bytes.
+     * @param from first byte.
+     * @param to   end, exclusive.
+     * @return the value.
+     * @throws NumberFormatException if the bytes are not an int.
+     */
+    static int parseInt(ByteBuffer buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        if (i == to) {
+            throw numberError(buf, from, to);
+        }
+        // accumulate negatively so Integer.MIN_VALUE fits
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberError(buf, from, to);
+            }
+            value = value * 10 - digit;
+            if (value < Integer.MIN_VALUE) {
+                throw numberError(buf, from, to);
+            }
+        }
+        if (!negative && value == Integer.MIN_VALUE) {
+            throw numberError(buf, from, to);
+        }
+        return (int) (negative ? value : -value);
+    }
+
+    /**
+     * Parses a double from ascii bytes, giving the same result as Double.parseDouble.
+     *
+     * Plain decimals with up to 15 significant digits and a small exponent are worked out
+     * exactly from a long and one power of ten. Anything else (more digits, NaN, hex, spaces)
+     * falls back to Double.parseDouble.
+     *
+     * @param buf  the bytes.
+     * @param from first byte.
+     * @param to   end, exclusive.
+     * @return the value.
+     * @throws NumberFormatException if the bytes are not a double.
+     */
+    static double parseDouble(ByteBuffer buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        boolean fraction = false;
+        for (; i < to; i++) {
+            byte b = buf.get(i);
+            if (b == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            anyDigit = true;
+            if (fraction) {
+                scale--;
+            }
+            if (mantissa == 0 && digit == 0) {
+                continue; // leading zero
+            }
+            if (++digits > MAX_FAST_DIGITS) {
+                return slowDouble(buf, from, to);
+            }
+            mantissa = mantissa * 10 + digit;
+        }
+        if (!anyDigit) {
+            return slowDouble(buf, from, to);
+        }
+        if (i < to) {
+            if (buf.get(i) != 'e' && buf.get(i) != 'E') {
+                return slowDouble(buf, from, to);
+            }
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                negativeExponent = buf.get(i) == '-';
+                i++;
+            }
+            if (i == to || to - i > 3) {
+                return slowDouble(buf, from, to);
+            }
+            int exponent = 0;
+            for (; i < to; i++) {
+                int digit = buf.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return slowDouble(buf, from, to);
+                }
+                exponent = exponent * 10 + digit;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (scale < -(POWERS_OF_TEN.length - 1) || scale > POWERS_OF_TEN.length - 1) {
+            return slowDouble(buf, from, to);
+        }
+        double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale]
+                : mantissa * POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a double the slow way, through a String.
+     *
+     * @param buf  the bytes.
+     * @param from first byte.
+     * @param to   end, exclusive.
+     * @return the value.
+     */
+    private static double slowDouble(ByteBuffer buf, int from, int to) {
+        return Double.parseDouble(string(buf, from, to, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Builds the error for a bad number.
+     *
+     * @param buf  the bytes.
+     * @param from first byte.
+     * @param to   end, exclusive.
+     * @return the exception to throw.
+     */
+    private static NumberFormatException numberError(ByteBuffer buf, int from, int to) {
+        return new NumberFormatException("For input string: \""
+                + string(buf, from, to, StandardCharsets.UTF_8) + '"');
+    }
+
+    /**
+     * Decodes a range of bytes.
+     *
+     * @param buf     the bytes.
+     * @param from    first byte.
+     * @param to      end, exclusive.
+     * @param charset the encoding.
+     * @return the text.
+     */
+    private static String string(ByteBuffer buf, int from, int to, Charset charset) {
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + from, to - from, charset);
+        }
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Finds line ends, skipping line breaks inside quoted fields. Keeps its state between
+     * calls, so a line can be scanned in pieces as a buffer fills.
+     */
+    static final class LineScanner {
+        /** Inside a quoted field. */
+        private boolean inQuotes;
+        /** At the start of a field, where a quote opens a quoted field. */
+        private boolean fieldStart = true;
+        /** Just after a closing quote, where another quote is a doubled quote. */
+        private boolean afterQuote;
+
+        /**
+         * Finds the end of the current line.
+         *
+         * @param buf  the bytes.
+         * @param from where to carry on scanning.
+         * @param to   end of the bytes, exclusive.
+         * @return the position of the line break, or to if the line runs past the bytes.
+         */
+        int lineEnd(ByteBuffer buf, int from, int to) {
+            for (int i = from; i < to; i++) {
+                byte b = buf.get(i);
+                if (inQuotes) {
+                    if (b == '"') {
+                        inQuotes = false;
+                        afterQuote = true;
+                    }
+                } else if (b == '"' && (fieldStart || afterQuote)) {
+                    inQuotes = true;
+                    fieldStart = false;
+                    afterQuote = false;
+                } else if (b == '\n' || b == '\r') {
+                    return i;
+                } else {
+                    fieldStart = b == ',';
+                    afterQuote = false;
+                }
+            }
+            return to;
+        }
+
+        /** Starts a new line. */
+        void reset() {
+            inQuotes = false;
+            fieldStart = true;
+            afterQuote = false;
+        }
+    }
+
+    /**
+     * Receives the data lines of a csv stream, to parse as much of them as it needs.
+     */
+    @FunctionalInterface
+    interface LineSink {
+        /**
+         * Handles one data line. The bytes are only valid during the call.
+         *
+         * @param parser the parser for the column layout of the stream.
+         * @param buf    the bytes.
+         * @param from   start of the line.
+         * @param to     end of the line, exclusive.
+         */
+        void line(GameCsvParser parser, ByteBuffer buf, int from, int to);
+    }
+}
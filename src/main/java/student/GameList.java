@@ -1,52 +1,304 @@
 package student;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * A list of games the user wants to play, kept in case insensitive name order.
+ *
+ * The games live in a balanced tree ordered by name ignoring case (then id, then name, so games
+ * that are not equal never tie). Adding and removing a game are O(log n), and the names come
+ * out already in order, so nothing is ever sorted to display or save the list.
+ *
+ * The tree also knows the position of every game ({@link GameTree}), so removing a range of
+ * positions is O(log n) whatever its length. Adding a range only reads the games in the range
+ * when the games to add come as a random access list, see
+ * {@link #addToList(String, List)}.
+ *
+ * Saving never leaves a half written file: names go to a temporary file that replaces the
+ * target only once complete, see {@link #saveGame(Path)}. {@link #saveGameAsync(String)} does
+ * the same off the calling thread.
+ */
 public class GameList implements IGameList {
+    /** Order of the list: name ignoring case, then id, then exact name. */
+    static final Comparator<BoardGame> ORDER = Comparator
+            .comparing(BoardGame::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(BoardGame::getId)
+            .thenComparing(BoardGame::getName);
+
+    /** Extension of files saved gzip compressed. */
+    public static final String GZIP_EXTENSION = ".gz";
+
+    /** Bytes buffered while saving. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The games, in list order. */
+    private final GameTree games = new GameTree(ORDER);
 
     /**
      * Constructor for the GameList.
      */
     public GameList() {
-        throw new UnsupportedOperationException("Unimplemented constructor 'GameList'");
     }
 
     @Override
     public List<String> getGameNames() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getGameNames'");
+        List<String> names = new ArrayList<>(games.size());
+        for (BoardGame game : games) {
+            names.add(game.getName());
+        }
+        return names;
     }
 
     @Override
     public void clear() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'clear'");
+        games.clear();
     }
 
     @Override
     public int count() {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'count'");
+        return games.size();
     }
 
     @Override
     public void saveGame(String filename) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'saveGame'");
+        try {
+            saveGame(Path.of(filename));
+        } catch (IOException | InvalidPathException e) {
+            System.err.println("Error writing file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the list of games to a file, one name per line, in list order.
+     *
+     * The names are streamed through a buffer to a temporary file next to the target, which is
+     * forced to disk and then moved over the target in one step. A failure part way leaves the
+     * old file as it was, never a cut off one. A file name ending in {@link #GZIP_EXTENSION} is
+     * written gzip compressed.
+     *
+     * @param file the file to save to.
+     * @throws IOException if the file cannot be written.
+     */
+    public void saveGame(Path file) throws IOException {
+        writeNames(getGameNames(), file);
+    }
+
+    /**
+     * Saves the list of games to a file in the background, on a thread shared by every list.
+     *
+     * The names are taken when called, so the list can change while the file is written. Saves
+     * run one at a time in the order they were asked for, so the last save of a file wins.
+     *
+     * @param filename the file to save to, gzip compressed if it ends in {@link #GZIP_EXTENSION}.
+     * @return completes with the file once it is in place, or with the IOException if it could
+     *         not be written.
+     * @see #saveGame(Path)
+     */
+    public CompletableFuture<Path> saveGameAsync(String filename) {
+        return saveGameAsync(filename, SaveThread.EXECUTOR);
+    }
+
+    /**
+     * Saves the list of games to a file in the background.
+     *
+     * @param filename the file to save to, gzip compressed if it ends in {@link #GZIP_EXTENSION}.
+     * @param executor where to write the file.
+     * @return completes with the file once it is in place, or with the IOException if it could
+     *         not be written.
+     * @see #saveGameAsync(String)
+     */
+    public CompletableFuture<Path> saveGameAsync(String filename, Executor executor) {
+        List<String> names = getGameNames();
+        CompletableFuture<Path> saved = new CompletableFuture<>();
+        try {
+            Path file = Path.of(filename);
+            executor.execute(() -> {
+                try {
+                    writeNames(names, file);
+                    saved.complete(file);
+                } catch (IOException | RuntimeException e) {
+                    saved.completeExceptionally(e);
+                }
+            });
+        } catch (InvalidPathException | RejectedExecutionException e) {
+            saved.completeExceptionally(e);
+        }
+        return saved;
+    }
+
+    /**
+     * Writes names to a file, one per line, through a temporary file moved over it.
+     *
+     * @param names the names.
+     * @param file  the file, gzip compressed if it ends in {@link #GZIP_EXTENSION}.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeNames(List<String> names, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        boolean gzip = file.getFileName().toString().toLowerCase().endsWith(GZIP_EXTENSION);
+        String separator = System.lineSeparator();
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE);
+                    OutputStream buffered = new BufferedOutputStream(
+                            Channels.newOutputStream(channel), BUFFER_SIZE);
+                    GZIPOutputStream compressed = gzip
+                            ? new GZIPOutputStream(buffered, BUFFER_SIZE) : null;
+                    Writer out = new OutputStreamWriter(gzip ? compressed : buffered,
+                            StandardCharsets.UTF_8)) {
+                for (String name : names) {
+                    out.write(name);
+                    out.write(separator);
+                }
+                out.flush();
+                if (gzip) {
+                    compressed.finish();
+                }
+                buffered.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
     }
 
     @Override
     public void addToList(String str, Stream<BoardGame> filtered) throws IllegalArgumentException {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'addToList'");
+        String text = str.trim();
+        if (text.equalsIgnoreCase(ADD_ALL)) {
+            filtered.forEach(games::add);
+            return;
+        }
+        addToList(text, filtered.collect(Collectors.toList()));
+    }
+
+    /**
+     * Adds a game or games to the list, from a list of candidates.
+     *
+     * Works like {@link #addToList(String, Stream)}. Ranges are read with
+     * {@link List#subList(int, int)}, so a view of a sorted result only has to produce the games
+     * up to the range, not the whole result. A {@link ResultView} also finds names itself.
+     *
+     * @param str      the name, position, range or "all" to add.
+     * @param filtered the candidates, in the order positions count in.
+     * @throws IllegalArgumentException if the string is not valid.
+     */
+    public void addToList(String str, List<BoardGame> filtered) throws IllegalArgumentException {
+        String text = str.trim();
+        if (text.equalsIgnoreCase(ADD_ALL)) {
+            filtered.forEach(games::add);
+            return;
+        }
+        List<BoardGame> named = filtered instanceof ResultView
+                ? ((ResultView) filtered).withName(text)
+                : ResultView.of(filtered).withName(text);
+        if (!named.isEmpty()) {
+            named.forEach(games::add);
+            return;
+        }
+        int[] range = parseRange(text, filtered.size());
+        filtered.subList(range[0], range[1]).forEach(games::add);
     }
 
     @Override
     public void removeFromList(String str) throws IllegalArgumentException {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'removeFromList'");
+        String text = str.trim();
+        if (text.equalsIgnoreCase(ADD_ALL)) {
+            clear();
+            return;
+        }
+        if (removeByName(text)) {
+            return;
+        }
+        int[] range = parseRange(text, games.size());
+        games.removeRange(range[0], range[1]);
+    }
+
+    /**
+     * Removes every game with a name, ignoring case.
+     *
+     * @param name the name.
+     * @return true if a game was removed.
+     */
+    private boolean removeByName(String name) {
+        // ids tie break equal names, so the lowest id sorts first among them
+        BoardGame first = new BoardGame(name, Integer.MIN_VALUE, 0, 0, 0, 0, 0, 0, 0, 0);
+        int from = games.lowerBound(first);
+        int to = from;
+        while (to < games.size() && games.get(to).getName().equalsIgnoreCase(name)) {
+            to++;
+        }
+        games.removeRange(from, to);
+        return to > from;
     }
 
+    /**
+     * Parses a position or range of positions, counting from 1.
+     *
+     * The end of a range past the last position is cut to it.
+     *
+     * @param text the position, such as 3, or range, such as 1-5.
+     * @param size the number of positions.
+     * @return {from, to} as 0 based indexes, to exclusive.
+     * @throws IllegalArgumentException if the text is not a position or range, or starts outside
+     *                                  the positions.
+     */
+    static int[] parseRange(String text, int size) {
+        String[] parts = text.split("-", -1);
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Invalid range: " + text);
+        }
+        int from;
+        int to;
+        try {
+            from = Integer.parseInt(parts[0].trim());
+            to = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : from;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a game, position or range: " + text);
+        }
+        if (from < 1 || from > size || to < from) {
+            throw new IllegalArgumentException("Range out of bounds: " + text);
+        }
+        return new int[] {from - 1, Math.min(to, size)};
+    }
 
+    /**
+     * The thread background saves run on, started on the first one. A daemon, so it never keeps
+     * the program running; wait on the future of the last save before exiting.
+     */
+    private static final class SaveThread {
+        /** Runs saves one at a time. */
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "game-list-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
@@ -0,0 +1,510 @@
+package student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of a {@link GameTable}, for fast startup.
+ *
+ * The file is little endian:
+ * <pre>
+ * header   magic "BGSN" (int), version (int), payload length (long), CRC32 of payload (long)
+ * payload  rows (int), names (int)
+ *          string table: end offset of each name (int[names]), UTF-8 bytes of every name
+ *          column count (int), per column: GameData ordinal (int), type (int), values[rows]
+ *          order count (int), per order: GameData ordinal (int), sorted row ids (int[rows])
+ *          name ids ordered by lower case name (int[names]), from version 2
+ * </pre>
+ * The NAME column holds name ids into the string table.
+ *
+ * Reading maps the file a window at a time, so snapshots past 2 GiB are read too, checks the
+ * checksum, and bulk copies each block into the table's arrays. Nothing is parsed, and as the
+ * sort orders of the columns and of the names are stored, nothing is sorted again: indexes are
+ * not stored, but {@link GameTable#buildIndexes()} on a table read back only groups rows and
+ * collects name grams, both linear. Version 1 snapshots, without the name order, are still read.
+ */
+public final class GameSnapshot {
+    /** File extension of snapshots. */
+    public static final String EXTENSION = ".bgsnap";
+    /** Version written. */
+    public static final int VERSION = 2;
+    /** Oldest version read. */
+    private static final int FIRST_VERSION = 1;
+
+    /** "BGSN" in file byte order. */
+    private static final int MAGIC = 0x4E534742;
+    /** Bytes before the payload. */
+    private static final int HEADER_SIZE = 24;
+    /** Block of int values. */
+    private static final int INT_BLOCK = 0;
+    /** Block of double values. */
+    private static final int DOUBLE_BLOCK = 1;
+    /** Size of the write buffer. */
+    private static final int WRITE_BUFFER = 1 << 20;
+    /** Most bytes mapped at once when reading. */
+    private static final int MAP_WINDOW = 1 << 30;
+
+    /** private constructor as static class. */
+    private GameSnapshot() {
+    }
+
+    /**
+     * Writes a table to a snapshot file.
+     *
+     * The snapshot is written to a new temporary file next to the target and moved over it once
+     * complete, so readers never see a partial file and concurrent writers do not share one. The
+     * temporary file is removed if writing fails.
+     *
+     * @param table the table to write.
+     * @param file  the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(GameTable table, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                BlockWriter out = new BlockWriter(channel, HEADER_SIZE);
+                int rows = table.size();
+                NameArena arena = table.nameArena();
+                out.putInt(rows);
+                out.putInt(arena.size());
+                out.putInts(arena.ends());
+                out.put(arena.bytes());
+
+                GameData[] columns = GameData.values();
+                out.putInt(columns.length);
+                for (GameData col : columns) {
+                    out.putInt(col.ordinal());
+                    if (col == GameData.NAME) {
+                        out.putInt(INT_BLOCK);
+                        for (int row = 0; row < rows; row++) {
+                            out.putInt(table.getNameId(row));
+                        }
+                    } else if (GameTable.isIntColumn(col)) {
+                        out.putInt(INT_BLOCK);
+                        out.putInts(table.intColumn(col));
+                    } else {
+                        out.putInt(DOUBLE_BLOCK);
+                        out.putDoubles(table.doubleColumn(col));
+                    }
+                }
+
+                int orders = 0;
+                for (GameData col : columns) {
+                    orders += GameTable.isSortable(col) ? 1 : 0;
+                }
+                out.putInt(orders);
+                for (GameData col : columns) {
+                    if (GameTable.isSortable(col)) {
+                        out.putInt(col.ordinal());
+                        out.putInts(table.getSortOrder(col).rows());
+                    }
+                }
+                out.putInts(table.getNameOrder());
+                out.flush();
+
+                ByteBuffer header =
+                        ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(out.length)
+                        .putLong(out.crc.getValue());
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads a table back from a snapshot file.
+     *
+     * @param file the snapshot.
+     * @return the table, without indexes.
+     * @throws IOException if the file cannot be read, is not a snapshot of a known version, or
+     *                     fails its checksum.
+     */
+    public static GameTable read(Path file) throws IOException {
+        return read(file, false);
+    }
+
+    /**
+     * Reads a table back from a snapshot file, optionally as a compact table.
+     *
+     * A compact table takes the string table as it is, without decoding a single name.
+     *
+     * @param file    the snapshot.
+     * @param compact true for a {@link GameTable#compact() compact} table.
+     * @return the table, without indexes.
+     * @throws IOException if the file cannot be read, is not a snapshot of a known version, or
+     *                     fails its checksum.
+     */
+    public static GameTable read(Path file, boolean compact) throws IOException {
+        return read(file, compact, MAP_WINDOW);
+    }
+
+    /**
+     * Reads a table back from a snapshot file, mapping at most a window of it at once.
+     *
+     * @param file    the snapshot.
+     * @param compact true for a compact table.
+     * @param window  most bytes mapped at once, at least 8.
+     * @return the table, without indexes.
+     * @throws IOException if the file cannot be read, is not a snapshot of a known version, or
+     *                     fails its checksum.
+     */
+    static GameTable read(Path file, boolean compact, int window) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a game snapshot: " + file);
+            }
+            BlockReader in = new BlockReader(channel, size, window);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a game snapshot: " + file);
+            }
+            int version = in.getInt();
+            if (version < FIRST_VERSION || version > VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            long length = in.getLong();
+            long checksum = in.getLong();
+            if (length != size - HEADER_SIZE) {
+                throw new IOException("Truncated snapshot: " + file);
+            }
+            CRC32 crc = new CRC32();
+            for (long from = HEADER_SIZE; from < size; from += window) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, from,
+                        Math.min(window, size - from)));
+            }
+            if (crc.getValue() != checksum) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            return readPayload(in, version, compact);
+        }
+    }
+
+    /**
+     * Reads the checked payload.
+     *
+     * @param in      the snapshot, positioned at the payload.
+     * @param version the version of the snapshot.
+     * @param compact true for a compact table.
+     * @return the table.
+     * @throws IOException if a block is unknown or missing.
+     */
+    private static GameTable readPayload(BlockReader in, int version, boolean compact)
+            throws IOException {
+        int rows = in.getInt();
+        int names = in.getInt();
+        int[] ends = in.getInts(names);
+        byte[] bytes = new byte[names == 0 ? 0 : ends[names - 1]];
+        in.get(bytes);
+        NameArena dictionary = new NameArena(bytes, ends);
+
+        GameData[] columns = GameData.values();
+        int[] nameIds = null;
+        int[][] intColumns = new int[columns.length][];
+        double[][] doubleColumns = new double[columns.length][];
+        for (int count = in.getInt(); count > 0; count--) {
+            GameData col = column(in.getInt());
+            int type = in.getInt();
+            if (type == INT_BLOCK && col == GameData.NAME) {
+                nameIds = in.getInts(rows);
+            } else if (type == INT_BLOCK && GameTable.isIntColumn(col)) {
+                intColumns[col.ordinal()] = in.getInts(rows);
+            } else if (type == DOUBLE_BLOCK && GameTable.isDoubleColumn(col)) {
+                doubleColumns[col.ordinal()] = in.getDoubles(rows);
+            } else {
+                throw new IOException("Bad block type " + type + " for column " + col);
+            }
+        }
+        for (GameData col : columns) {
+            boolean present = col == GameData.NAME ? nameIds != null
+                    : GameTable.isIntColumn(col) ? intColumns[col.ordinal()] != null
+                    : doubleColumns[col.ordinal()] != null;
+            if (!present) {
+                throw new IOException("Missing column in snapshot: " + col);
+            }
+        }
+
+        int[][] orders = new int[columns.length][];
+        for (int count = in.getInt(); count > 0; count--) {
+            orders[column(in.getInt()).ordinal()] = in.getInts(rows);
+        }
+        int[] nameOrder = version >= 2 ? in.getInts(names) : null;
+        return GameTable.fromColumns(dictionary, nameIds, intColumns, doubleColumns, orders,
+                nameOrder, compact);
+    }
+
+    /**
+     * Get the column with an ordinal read from a snapshot.
+     *
+     * @param ordinal the ordinal.
+     * @return the column.
+     * @throws IOException if no column has that ordinal.
+     */
+    private static GameData column(int ordinal) throws IOException {
+        GameData[] columns = GameData.values();
+        if (ordinal < 0 || ordinal >= columns.length) {
+            throw new IOException("Unknown column in snapshot: " + ordinal);
+        }
+        return columns[ordinal];
+    }
+
+    /**
+     * Reads a snapshot through a mapped window that moves along the file.
+     */
+    private static final class BlockReader {
+        /** The file. */
+        private final FileChannel channel;
+        /** Size of the file. */
+        private final long size;
+        /** Most bytes mapped at once. */
+        private final int window;
+        /** The mapped window. */
+        private ByteBuffer buffer = ByteBuffer.allocate(0);
+        /** File position of the start of the window. */
+        private long start;
+
+        /**
+         * Creates a reader at the start of a file.
+         *
+         * @param channel the file.
+         * @param size    the size of the file.
+         * @param window  most bytes mapped at once, at least 8.
+         */
+        BlockReader(FileChannel channel, long size, int window) {
+            if (window < Long.BYTES) {
+                throw new IllegalArgumentException("Window must be at least 8 bytes: " + window);
+            }
+            this.channel = channel;
+            this.size = size;
+            this.window = window;
+        }
+
+        /**
+         * Maps the window on from the current position if fewer bytes than needed are left.
+         *
+         * @param bytes the bytes needed.
+         * @throws IOException if the file ends first.
+         */
+        private void need(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            long position = start + buffer.position();
+            long length = Math.min(window, size - position);
+            if (length < bytes) {
+                throw new IOException("Truncated snapshot");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            start = position;
+        }
+
+        /**
+         * Reads an int.
+         *
+         * @return the value.
+         * @throws IOException if the file ends first.
+         */
+        int getInt() throws IOException {
+            need(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        /**
+         * Reads a long.
+         *
+         * @return the value.
+         * @throws IOException if the file ends first.
+         */
+        long getLong() throws IOException {
+            need(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        /**
+         * Reads bytes.
+         *
+         * @param bytes filled with the bytes.
+         * @throws IOException if the file ends first.
+         */
+        void get(byte[] bytes) throws IOException {
+            for (int from = 0; from < bytes.length;) {
+                need(1);
+                int count = Math.min(buffer.remaining(), bytes.length - from);
+                buffer.get(bytes, from, count);
+                from += count;
+            }
+        }
+
+        /**
+         * Bulk reads an int block.
+         *
+         * @param count the number of values.
+         * @return the values.
+         * @throws IOException if the file ends first or the count is negative.
+         */
+        int[] getInts(int count) throws IOException {
+            if (count < 0) {
+                throw new IOException("Bad block length " + count);
+            }
+            int[] values = new int[count];
+            for (int from = 0; from < count;) {
+                need(Integer.BYTES);
+                int n = Math.min(buffer.remaining() / Integer.BYTES, count - from);
+                buffer.asIntBuffer().get(values, from, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                from += n;
+            }
+            return values;
+        }
+
+        /**
+         * Bulk reads a double block.
+         *
+         * @param count the number of values.
+         * @return the values.
+         * @throws IOException if the file ends first or the count is negative.
+         */
+        double[] getDoubles(int count) throws IOException {
+            if (count < 0) {
+                throw new IOException("Bad block length " + count);
+            }
+            double[] values = new double[count];
+            for (int from = 0; from < count;) {
+                need(Double.BYTES);
+                int n = Math.min(buffer.remaining() / Double.BYTES, count - from);
+                buffer.asDoubleBuffer().get(values, from, n);
+                buffer.position(buffer.position() + n * Double.BYTES);
+                from += n;
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Writes the payload through a fixed buffer, keeping its length and checksum.
+     */
+    private static final class BlockWriter {
+        /** The file. */
+        private final FileChannel channel;
+        /** Pending bytes. */
+        private final ByteBuffer buffer =
+                ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        /** Checksum of the bytes flushed so far. */
+        private final CRC32 crc = new CRC32();
+        /** File position of the next flush. */
+        private long position;
+        /** Bytes flushed so far. */
+        private long length;
+
+        /**
+         * Creates a writer.
+         *
+         * @param channel the file.
+         * @param start   the file position of the first byte.
+         */
+        BlockWriter(FileChannel channel, long start) {
+            this.channel = channel;
+            this.position = start;
+        }
+
+        /**
+         * Writes an int.
+         *
+         * @param value the value.
+         * @throws IOException if the file cannot be written.
+         */
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        /**
+         * Writes bytes.
+         *
+         * @param bytes the bytes.
+         * @throws IOException if the file cannot be written.
+         */
+        void put(byte[] bytes) throws IOException {
+            for (int from = 0; from < bytes.length;) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int count = Math.min(buffer.remaining(), bytes.length - from);
+                buffer.put(bytes, from, count);
+                from += count;
+            }
+        }
+
+        /**
+         * Writes a block of ints.
+         *
+         * @param values the values.
+         * @throws IOException if the file cannot be written.
+         */
+        void putInts(int[] values) throws IOException {
+            for (int from = 0; from < values.length;) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    flush();
+                }
+                int count = Math.min(buffer.remaining() / Integer.BYTES, values.length - from);
+                buffer.asIntBuffer().put(values, from, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                from += count;
+            }
+        }
+
+        /**
+         * Writes a block of doubles.
+         *
+         * @param values the values.
+         * @throws IOException if the file cannot be written.
+         */
+        void putDoubles(double[] values) throws IOException {
+            for (int from = 0; from < values.length;) {
+                if (buffer.remaining() < Double.BYTES) {
+                    flush();
+                }
+                int count = Math.min(buffer.remaining() / Double.BYTES, values.length - from);
+                buffer.asDoubleBuffer().put(values, from, count);
+                buffer.position(buffer.position() + count * Double.BYTES);
+                from += count;
+            }
+        }
+
+        /**
+         * Writes out the pending bytes.
+         *
+         * @throws IOException if the file cannot be written.
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            length += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
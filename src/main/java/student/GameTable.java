@@ -0,0 +1,1013 @@
+package student;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column oriented store of the board game collection.
+ *
+ * Every numeric GameData column is held in its own primitive array, indexed by row id, so
+ * filters can walk contiguous memory instead of chasing BoardGame references through a hash set.
+ * Names are kept in a dictionary, so repeated names share a single String (and a single lower
+ * case copy used for case insensitive filters).
+ *
+ * A compact table ({@link #compact()}, {@link Builder#compact()}) keeps only the columns: the
+ * names are packed as UTF-8 into one {@link NameArena} and no BoardGame objects are held, so the
+ * heap cost is a few arrays rather than several objects per game. Games and names are then
+ * materialized when asked for, which in practice means only for the rows of a result. Filters
+ * and orders work the same on both kinds of table.
+ *
+ * The ascending order of every sortable column is worked out once when the table is built, so
+ * sorting a result never runs a comparator.
+ *
+ * The table is immutable once built. Use {@link #fromGames(Collection)} or a {@link Builder}.
+ */
+public final class GameTable {
+    /** Number of rows in the table. */
+    private final int size;
+    /** Original objects, handed back as filter results. Null when compact. */
+    private final BoardGame[] games;
+    /** Distinct names, indexed by name id. Null when compact. */
+    private final String[] nameDictionary;
+    /** Lower case copy of the name dictionary. Null when compact. */
+    private final String[] lowerNameDictionary;
+    /** Distinct names packed as UTF-8, indexed by name id. Null unless compact. */
+    private final NameArena nameArena;
+    /** Name id per row. */
+    private final int[] nameIds;
+    /** Unique identifier per row. */
+    private final int[] ids;
+    /** Minimum players per row. */
+    private final int[] minPlayers;
+    /** Maximum players per row. */
+    private final int[] maxPlayers;
+    /** Minimum play time per row. */
+    private final int[] minTime;
+    /** Maximum play time per row. */
+    private final int[] maxTime;
+    /** Rank per row. */
+    private final int[] rank;
+    /** Year published per row. */
+    private final int[] year;
+    /** Average rating per row. */
+    private final double[] rating;
+    /** Average difficulty per row. */
+    private final double[] difficulty;
+    /** Ascending order of every sortable column, by GameData ordinal. */
+    private final SortOrder[] sortOrders;
+    /** Optional sorted indexes, by GameData ordinal. Null until built. */
+    private volatile ColumnIndex[] indexes;
+    /** Optional name index. Null until built. */
+    private volatile NameIndex nameIndex;
+    /** Name ids in name order, known before the name index is built, or null. */
+    private volatile int[] nameOrder;
+
+    /**
+     * Builds the table from a finished builder.
+     *
+     * @param builder the builder holding the rows.
+     * @param orders  works out the order of each sortable column.
+     */
+    private GameTable(Builder builder, OrderSource orders) {
+        this(builder.games == null ? null : Arrays.copyOf(builder.games, builder.size),
+                builder.dictionary == null ? null : builder.dictionary.toArray(),
+                builder.arena == null ? null : builder.arena.build(),
+                Arrays.copyOf(builder.nameIds, builder.size), builder.intColumns(),
+                builder.doubleColumns(), orders);
+    }
+
+    /**
+     * Builds the table from its columns. The arrays are owned by the table from now on.
+     *
+     * A table is either full, with games and a name dictionary, or compact, with a name arena
+     * only.
+     *
+     * @param games          object per row, null when compact.
+     * @param nameDictionary distinct names, indexed by name id, null when compact.
+     * @param nameArena      distinct names packed, null unless compact.
+     * @param nameIds        name id per row.
+     * @param intColumns     the int columns (ID included), by GameData ordinal.
+     * @param doubleColumns  the double columns, by GameData ordinal.
+     * @param orders         works out the order of each sortable column.
+     */
+    private GameTable(BoardGame[] games, String[] nameDictionary, NameArena nameArena,
+            int[] nameIds, int[][] intColumns, double[][] doubleColumns, OrderSource orders) {
+        this.size = nameIds.length;
+        this.games = games;
+        this.nameDictionary = nameDictionary;
+        this.nameArena = nameArena;
+        if (nameDictionary == null) {
+            this.lowerNameDictionary = null;
+        } else {
+            this.lowerNameDictionary = new String[nameDictionary.length];
+            for (int i = 0; i < nameDictionary.length; i++) {
+                lowerNameDictionary[i] = nameDictionary[i].toLowerCase();
+            }
+        }
+        this.nameIds = nameIds;
+        this.ids = intColumns[GameData.ID.ordinal()];
+        this.minPlayers = intColumns[GameData.MIN_PLAYERS.ordinal()];
+        this.maxPlayers = intColumns[GameData.MAX_PLAYERS.ordinal()];
+        this.minTime = intColumns[GameData.MIN_TIME.ordinal()];
+        this.maxTime = intColumns[GameData.MAX_TIME.ordinal()];
+        this.rank = intColumns[GameData.RANK.ordinal()];
+        this.year = intColumns[GameData.YEAR.ordinal()];
+        this.rating = doubleColumns[GameData.RATING.ordinal()];
+        this.difficulty = doubleColumns[GameData.DIFFICULTY.ordinal()];
+        this.sortOrders = new SortOrder[GameData.values().length];
+        for (GameData col : GameData.values()) {
+            if (isSortable(col)) {
+                sortOrders[col.ordinal()] = orders.orderOf(this, col);
+            }
+        }
+    }
+
+    /**
+     * Builds a table straight from its columns, as read back from a {@link GameSnapshot}.
+     *
+     * Unless compact, the names are decoded and the BoardGame objects are recreated from the
+     * columns. The arrays are owned by the table from now on.
+     *
+     * @param names         distinct names packed, indexed by name id.
+     * @param nameIds       name id per row.
+     * @param intColumns    the int columns (ID included), by GameData ordinal.
+     * @param doubleColumns the double columns, by GameData ordinal.
+     * @param orderRows     sorted row ids of each sortable column by GameData ordinal, or null
+     *                      entries to work them out.
+     * @param nameOrder     name ids in name order, as {@link #getNameOrder()} gave them, or null
+     *                      to sort the names when the indexes are built.
+     * @param compact       true to keep the table compact.
+     * @return the table.
+     */
+    static GameTable fromColumns(NameArena names, int[] nameIds, int[][] intColumns,
+            double[][] doubleColumns, int[][] orderRows, int[] nameOrder, boolean compact) {
+        OrderSource orders = (table, col) -> orderRows[col.ordinal()] == null
+                ? SortOrder.build(table, col) : SortOrder.fromRows(orderRows[col.ordinal()]);
+        GameTable table;
+        if (compact) {
+            table = new GameTable(null, null, names, nameIds, intColumns, doubleColumns, orders);
+        } else {
+            String[] nameDictionary = names.toArray();
+            BoardGame[] games = new BoardGame[nameIds.length];
+            for (int row = 0; row < games.length; row++) {
+                games[row] = newGame(nameDictionary[nameIds[row]], intColumns, doubleColumns,
+                        row);
+            }
+            table = new GameTable(games, nameDictionary, null, nameIds, intColumns,
+                    doubleColumns, orders);
+        }
+        table.nameOrder = nameOrder;
+        return table;
+    }
+
+    /**
+     * Creates the BoardGame of a row from its columns.
+     *
+     * @param name          the name of the row.
+     * @param intColumns    the int columns, by GameData ordinal.
+     * @param doubleColumns the double columns, by GameData ordinal.
+     * @param row           the row id.
+     * @return a new game.
+     */
+    private static BoardGame newGame(String name, int[][] intColumns, double[][] doubleColumns,
+            int row) {
+        return new BoardGame(name,
+                intColumns[GameData.ID.ordinal()][row],
+                intColumns[GameData.MIN_PLAYERS.ordinal()][row],
+                intColumns[GameData.MAX_PLAYERS.ordinal()][row],
+                intColumns[GameData.MIN_TIME.ordinal()][row],
+                intColumns[GameData.MAX_TIME.ordinal()][row],
+                doubleColumns[GameData.DIFFICULTY.ordinal()][row],
+                intColumns[GameData.RANK.ordinal()][row],
+                doubleColumns[GameData.RATING.ordinal()][row],
+                intColumns[GameData.YEAR.ordinal()][row]);
+    }
+
+    /**
+     * Builds a table holding the passed in games, in iteration order.
+     *
+     * @param games the games to store.
+     * @return a new table.
+     */
+    public static GameTable fromGames(Collection<BoardGame> games) {
+        Builder builder = new Builder(games.size());
+        for (BoardGame game : games) {
+            builder.add(game);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get a compact copy of the table: the same rows, orders and indexes, but no BoardGame
+     * objects or name Strings held.
+     *
+     * The columns and orders are shared, so this costs packing the names and rebuilding the
+     * indexes if this table has them.
+     *
+     * @return the compact table, or this table if already compact.
+     */
+    public GameTable compact() {
+        if (isCompact()) {
+            return this;
+        }
+        int[][] intColumns = new int[GameData.values().length][];
+        double[][] doubleColumns = new double[GameData.values().length][];
+        for (GameData col : GameData.values()) {
+            if (isIntColumn(col)) {
+                intColumns[col.ordinal()] = intColumn(col);
+            } else if (isDoubleColumn(col)) {
+                doubleColumns[col.ordinal()] = doubleColumn(col);
+            }
+        }
+        GameTable compact = new GameTable(null, null, NameArena.of(nameDictionary), nameIds,
+                intColumns, doubleColumns, (table, col) -> sortOrders[col.ordinal()]);
+        compact.nameOrder = nameIndex != null ? nameIndex.nameOrder() : nameOrder;
+        return hasIndexes() ? compact.buildIndexes() : compact;
+    }
+
+    /**
+     * Checks if the table is compact, materializing games and names when asked for.
+     *
+     * @return true if compact.
+     */
+    public boolean isCompact() {
+        return nameArena != null;
+    }
+
+    /**
+     * Get the number of rows in the table.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the BoardGame stored at a row.
+     *
+     * A compact table creates a new, equal, object on every call.
+     *
+     * @param row the row id.
+     * @return the game at that row.
+     */
+    public BoardGame getGame(int row) {
+        if (games != null) {
+            return games[row];
+        }
+        return new BoardGame(getName(row), ids[row], minPlayers[row], maxPlayers[row],
+                minTime[row], maxTime[row], difficulty[row], rank[row], rating[row], year[row]);
+    }
+
+    /**
+     * Get the name stored at a row.
+     *
+     * @param row the row id.
+     * @return the name of the game.
+     */
+    public String getName(int row) {
+        return getDictionaryName(nameIds[row]);
+    }
+
+    /**
+     * Get the lower case name stored at a row. Shared across rows with the same name, unless
+     * the table is compact.
+     *
+     * @param row the row id.
+     * @return the lower case name of the game.
+     */
+    public String getLowerName(int row) {
+        return getLowerDictionaryName(nameIds[row]);
+    }
+
+    /**
+     * Get the name dictionary id of a row. Rows with the same name share an id.
+     *
+     * @param row the row id.
+     * @return the name id.
+     */
+    int getNameId(int row) {
+        return nameIds[row];
+    }
+
+    /**
+     * Get the number of distinct names.
+     *
+     * @return the size of the name dictionary.
+     */
+    int nameCount() {
+        return nameArena != null ? nameArena.size() : nameDictionary.length;
+    }
+
+    /**
+     * Get a name from the dictionary.
+     *
+     * @param nameId the name id.
+     * @return the name.
+     */
+    String getDictionaryName(int nameId) {
+        return nameArena != null ? nameArena.get(nameId) : nameDictionary[nameId];
+    }
+
+    /**
+     * Get a lower case name from the dictionary.
+     *
+     * @param nameId the name id.
+     * @return the lower case name.
+     */
+    String getLowerDictionaryName(int nameId) {
+        return nameArena != null ? nameArena.get(nameId).toLowerCase()
+                : lowerNameDictionary[nameId];
+    }
+
+    /**
+     * Get the distinct names packed, as a {@link GameSnapshot} stores them.
+     *
+     * @return the names, packed on each call unless the table is compact.
+     */
+    NameArena nameArena() {
+        return nameArena != null ? nameArena : NameArena.of(nameDictionary);
+    }
+
+    /**
+     * Get the name ids ordered by lower case name, as the name index holds them.
+     *
+     * @return the name ids in name order, sorted on each call if not yet known. Not to be
+     *         modified.
+     */
+    int[] getNameOrder() {
+        NameIndex index = nameIndex;
+        if (index != null) {
+            return index.nameOrder();
+        }
+        int[] order = nameOrder;
+        return order != null ? order : NameIndex.nameOrder(this);
+    }
+
+    /**
+     * Get the unique identifier stored at a row.
+     *
+     * @param row the row id.
+     * @return the id of the game.
+     */
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Checks if a column is stored as whole numbers.
+     *
+     * @param col the column to check.
+     * @return true if the column is backed by an int array.
+     */
+    public static boolean isIntColumn(GameData col) {
+        switch (col) {
+            case ID:
+            case RANK:
+            case MIN_PLAYERS:
+            case MAX_PLAYERS:
+            case MIN_TIME:
+            case MAX_TIME:
+            case YEAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks if a column is stored as decimal numbers.
+     *
+     * @param col the column to check.
+     * @return true if the column is backed by a double array.
+     */
+    public static boolean isDoubleColumn(GameData col) {
+        return col == GameData.RATING || col == GameData.DIFFICULTY;
+    }
+
+    /**
+     * Get the backing array of an int column. The array is shared, do not modify it.
+     *
+     * @param col the column.
+     * @return the values of the column, indexed by row id.
+     */
+    int[] intColumn(GameData col) {
+        switch (col) {
+            case ID:
+                return ids;
+            case RANK:
+                return rank;
+            case MIN_PLAYERS:
+                return minPlayers;
+            case MAX_PLAYERS:
+                return maxPlayers;
+            case MIN_TIME:
+                return minTime;
+            case MAX_TIME:
+                return maxTime;
+            case YEAR:
+                return year;
+            default:
+                throw new IllegalArgumentException("Not an int column: " + col);
+        }
+    }
+
+    /**
+     * Get the backing array of a double column. The array is shared, do not modify it.
+     *
+     * @param col the column.
+     * @return the values of the column, indexed by row id.
+     */
+    double[] doubleColumn(GameData col) {
+        switch (col) {
+            case RATING:
+                return rating;
+            case DIFFICULTY:
+                return difficulty;
+            default:
+                throw new IllegalArgumentException("Not a double column: " + col);
+        }
+    }
+
+    /**
+     * Get the value of any numeric column as a double.
+     *
+     * @param col the column.
+     * @param row the row id.
+     * @return the value widened to a double.
+     */
+    public double getNumber(GameData col, int row) {
+        if (isDoubleColumn(col)) {
+            return doubleColumn(col)[row];
+        }
+        return intColumn(col)[row];
+    }
+
+    /**
+     * Checks if results can be sorted on a column.
+     *
+     * @param col the column to check.
+     * @return true for every column except ID.
+     */
+    public static boolean isSortable(GameData col) {
+        return col != GameData.ID;
+    }
+
+    /**
+     * Get the precomputed ascending order of a column.
+     *
+     * @param col the column.
+     * @return the order.
+     * @throws IllegalArgumentException if the column cannot be sorted on.
+     */
+    SortOrder getSortOrder(GameData col) {
+        if (!isSortable(col)) {
+            throw new IllegalArgumentException("Unsupported sort column: " + col);
+        }
+        return sortOrders[col.ordinal()];
+    }
+
+    /**
+     * Checks if a column can have a sorted index.
+     *
+     * @param col the column to check.
+     * @return true for every numeric column except ID.
+     */
+    public static boolean isIndexable(GameData col) {
+        return col != GameData.ID && (isIntColumn(col) || isDoubleColumn(col));
+    }
+
+    /**
+     * Builds the sorted index of every indexable column and the name index, if not already built.
+     *
+     * Indexes are optional. They cost one sorted copy of each numeric column plus the name
+     * trigrams, and let the planner answer range and name conditions without a full scan.
+     *
+     * @return this table.
+     */
+    public synchronized GameTable buildIndexes() {
+        if (nameIndex == null) {
+            nameIndex = NameIndex.build(this, nameOrder);
+            nameOrder = null;
+        }
+        if (indexes == null) {
+            ColumnIndex[] built = new ColumnIndex[GameData.values().length];
+            for (GameData col : GameData.values()) {
+                if (isIndexable(col)) {
+                    built[col.ordinal()] = ColumnIndex.build(this, col);
+                }
+            }
+            indexes = built;
+        }
+        return this;
+    }
+
+    /**
+     * Builds the indexes as {@link #buildIndexes()} does, taking a name order worked out by the
+     * caller instead of sorting the names.
+     *
+     * @param order name ids in name order, as {@link #getNameOrder()} gives them.
+     * @return this table.
+     */
+    synchronized GameTable buildIndexes(int[] order) {
+        if (nameIndex == null) {
+            nameOrder = order;
+        }
+        return buildIndexes();
+    }
+
+    /**
+     * Checks if the sorted indexes have been built.
+     *
+     * @return true if {@link #buildIndexes()} has been called.
+     */
+    public boolean hasIndexes() {
+        return indexes != null;
+    }
+
+    /**
+     * Get the sorted index of a column.
+     *
+     * @param col the column.
+     * @return the index, or null if indexes are not built or the column is not indexable.
+     */
+    ColumnIndex getIndex(GameData col) {
+        ColumnIndex[] built = indexes;
+        return built == null ? null : built[col.ordinal()];
+    }
+
+    /**
+     * Get the name index.
+     *
+     * @return the index, or null if indexes are not built.
+     */
+    NameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    /**
+     * Builder that grows the column arrays as rows are added.
+     */
+    public static final class Builder {
+        /** Rows added so far. */
+        private int size;
+        /** Objects per row. Null when compact. */
+        private BoardGame[] games;
+        /** Name dictionary being built. Null when compact. */
+        private NameDictionary dictionary = new NameDictionary();
+        /** Packed names being built. Null unless compact. */
+        private NameArena.Builder arena;
+        /** Name id per row. */
+        private int[] nameIds;
+        /** Id per row. */
+        private int[] ids;
+        /** Minimum players per row. */
+        private int[] minPlayers;
+        /** Maximum players per row. */
+        private int[] maxPlayers;
+        /** Minimum play time per row. */
+        private int[] minTime;
+        /** Maximum play time per row. */
+        private int[] maxTime;
+        /** Rank per row. */
+        private int[] rank;
+        /** Year per row. */
+        private int[] year;
+        /** Rating per row. */
+        private double[] rating;
+        /** Difficulty per row. */
+        private double[] difficulty;
+        /** Id and name id of the rows from addIfAbsent. Null until first used. */
+        private RowKeys keys;
+        /** Table the last row copied by addRow came from. */
+        private GameTable rowSource;
+        /** Name id in this builder of each name id of rowSource, -1 until copied. */
+        private int[] sourceNameIds;
+
+        /** Creates a builder with a small default capacity. */
+        public Builder() {
+            this(16);
+        }
+
+        /**
+         * Creates a builder sized for an expected number of rows.
+         *
+         * @param capacity expected number of rows.
+         */
+        public Builder(int capacity) {
+            int cap = Math.max(capacity, 1);
+            games = new BoardGame[cap];
+            nameIds = new int[cap];
+            ids = new int[cap];
+            minPlayers = new int[cap];
+            maxPlayers = new int[cap];
+            minTime = new int[cap];
+            maxTime = new int[cap];
+            rank = new int[cap];
+            year = new int[cap];
+            rating = new double[cap];
+            difficulty = new double[cap];
+        }
+
+        /**
+         * Makes the table built compact: only the columns of the games added are kept, not the
+         * games themselves. Call before adding any game.
+         *
+         * @return this builder.
+         * @throws IllegalStateException if games were already added.
+         */
+        public Builder compact() {
+            if (size > 0) {
+                throw new IllegalStateException("Builder already has rows");
+            }
+            games = null;
+            dictionary = null;
+            arena = new NameArena.Builder();
+            return this;
+        }
+
+        /**
+         * Adds a game as the next row.
+         *
+         * @param game the game to add.
+         * @return this builder.
+         */
+        public Builder add(BoardGame game) {
+            return add(game, nameIdOf(game.getName()));
+        }
+
+        /**
+         * Adds a game as the next row, unless a game with the same id and name was added
+         * through this method before. Checks the columns the builder already holds, so no set
+         * of games is needed next to it.
+         *
+         * @param game the game to add.
+         * @return true if it was added.
+         */
+        boolean addIfAbsent(BoardGame game) {
+            int nameId = nameIdOf(game.getName());
+            if (keys == null) {
+                keys = new RowKeys();
+            }
+            if (!keys.add(((long) game.getId() << 32) | nameId)) {
+                return false;
+            }
+            add(game, nameId);
+            return true;
+        }
+
+        /**
+         * Copies a row of a table as the next row.
+         *
+         * The column values and name id are copied as they are, so a compact builder copying from
+         * a compact table creates no BoardGame, and each distinct name of the table is looked up
+         * once, not once per row.
+         *
+         * @param table the table.
+         * @param row   the row to copy.
+         * @return this builder.
+         */
+        Builder addRow(GameTable table, int row) {
+            if (table != rowSource) {
+                rowSource = table;
+                sourceNameIds = new int[table.nameCount()];
+                Arrays.fill(sourceNameIds, -1);
+            }
+            int sourceId = table.nameIds[row];
+            int nameId = sourceNameIds[sourceId];
+            if (nameId < 0) {
+                nameId = nameIdOf(table.getDictionaryName(sourceId));
+                sourceNameIds[sourceId] = nameId;
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            if (games != null) {
+                games[size] = table.getGame(row);
+            }
+            nameIds[size] = nameId;
+            ids[size] = table.ids[row];
+            minPlayers[size] = table.minPlayers[row];
+            maxPlayers[size] = table.maxPlayers[row];
+            minTime[size] = table.minTime[row];
+            maxTime[size] = table.maxTime[row];
+            rank[size] = table.rank[row];
+            year[size] = table.year[row];
+            rating[size] = table.rating[row];
+            difficulty[size] = table.difficulty[row];
+            size++;
+            return this;
+        }
+
+        /**
+         * Appends the rows of another builder that were not added here before, as addIfAbsent
+         * would add their games one at a time, in the same order.
+         *
+         * The column values are copied as they are, and each distinct name of the other builder
+         * is looked up once, not once per row.
+         *
+         * @param rows the builder whose rows to append; it is left as it is.
+         * @return the number of rows appended.
+         */
+        int addAllIfAbsent(Builder rows) {
+            if (keys == null) {
+                keys = new RowKeys();
+            }
+            int[] rowsNameIds = new int[rows.nameCount()];
+            Arrays.fill(rowsNameIds, -1);
+            int added = 0;
+            for (int row = 0; row < rows.size; row++) {
+                int sourceId = rows.nameIds[row];
+                int nameId = rowsNameIds[sourceId];
+                if (nameId < 0) {
+                    nameId = nameIdOf(rows.nameOf(sourceId));
+                    rowsNameIds[sourceId] = nameId;
+                }
+                if (!keys.add(((long) rows.ids[row] << 32) | nameId)) {
+                    continue;
+                }
+                if (size == ids.length) {
+                    grow();
+                }
+                if (games != null) {
+                    games[size] = rows.games != null ? rows.games[row]
+                            : new BoardGame(rows.nameOf(sourceId), rows.ids[row],
+                                    rows.minPlayers[row], rows.maxPlayers[row],
+                                    rows.minTime[row], rows.maxTime[row], rows.difficulty[row],
+                                    rows.rank[row], rows.rating[row], rows.year[row]);
+                }
+                nameIds[size] = nameId;
+                ids[size] = rows.ids[row];
+                minPlayers[size] = rows.minPlayers[row];
+                maxPlayers[size] = rows.maxPlayers[row];
+                minTime[size] = rows.minTime[row];
+                maxTime[size] = rows.maxTime[row];
+                rank[size] = rows.rank[row];
+                year[size] = rows.year[row];
+                rating[size] = rows.rating[row];
+                difficulty[size] = rows.difficulty[row];
+                size++;
+                added++;
+            }
+            return added;
+        }
+
+        /**
+         * Get the number of rows added.
+         *
+         * @return the count.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Get the number of distinct names added.
+         *
+         * @return the count.
+         */
+        private int nameCount() {
+            return games != null ? dictionary.size() : arena.size();
+        }
+
+        /**
+         * Get a name added so far.
+         *
+         * @param nameId the name id.
+         * @return the name.
+         */
+        private String nameOf(int nameId) {
+            return games != null ? dictionary.get(nameId) : arena.get(nameId);
+        }
+
+        /**
+         * Get the id of a name, adding it to the names if it has not been seen.
+         *
+         * @param name the name.
+         * @return the name id.
+         */
+        private int nameIdOf(String name) {
+            return games != null ? dictionary.idOf(name) : arena.idOf(name);
+        }
+
+        /**
+         * Adds a game as the next row.
+         *
+         * @param game   the game to add.
+         * @param nameId the id of its name.
+         * @return this builder.
+         */
+        private Builder add(BoardGame game, int nameId) {
+            if (size == ids.length) {
+                grow();
+            }
+            if (games != null) {
+                games[size] = game;
+            }
+            nameIds[size] = nameId;
+            ids[size] = game.getId();
+            minPlayers[size] = game.getMinPlayers();
+            maxPlayers[size] = game.getMaxPlayers();
+            minTime[size] = game.getMinPlayTime();
+            maxTime[size] = game.getMaxPlayTime();
+            rank[size] = game.getRank();
+            year[size] = game.getYearPublished();
+            rating[size] = game.getRating();
+            difficulty[size] = game.getDifficulty();
+            size++;
+            return this;
+        }
+
+        /**
+         * Builds the immutable table.
+         *
+         * @return the table.
+         */
+        public GameTable build() {
+            return build(SortOrder::build);
+        }
+
+        /**
+         * Builds the immutable table, taking the column orders from a source.
+         *
+         * @param orders works out the order of each sortable column of the new table.
+         * @return the table.
+         */
+        GameTable build(OrderSource orders) {
+            return new GameTable(this, orders);
+        }
+
+        /**
+         * Copies out the int columns, trimmed to the rows added.
+         *
+         * @return the columns by GameData ordinal.
+         */
+        private int[][] intColumns() {
+            int[][] columns = new int[GameData.values().length][];
+            columns[GameData.ID.ordinal()] = Arrays.copyOf(ids, size);
+            columns[GameData.MIN_PLAYERS.ordinal()] = Arrays.copyOf(minPlayers, size);
+            columns[GameData.MAX_PLAYERS.ordinal()] = Arrays.copyOf(maxPlayers, size);
+            columns[GameData.MIN_TIME.ordinal()] = Arrays.copyOf(minTime, size);
+            columns[GameData.MAX_TIME.ordinal()] = Arrays.copyOf(maxTime, size);
+            columns[GameData.RANK.ordinal()] = Arrays.copyOf(rank, size);
+            columns[GameData.YEAR.ordinal()] = Arrays.copyOf(year, size);
+            return columns;
+        }
+
+        /**
+         * Copies out the double columns, trimmed to the rows added.
+         *
+         * @return the columns by GameData ordinal.
+         */
+        private double[][] doubleColumns() {
+            double[][] columns = new double[GameData.values().length][];
+            columns[GameData.RATING.ordinal()] = Arrays.copyOf(rating, size);
+            columns[GameData.DIFFICULTY.ordinal()] = Arrays.copyOf(difficulty, size);
+            return columns;
+        }
+
+        /** Doubles the capacity of every column. */
+        private void grow() {
+            int cap = ids.length * 2;
+            if (games != null) {
+                games = Arrays.copyOf(games, cap);
+            }
+            nameIds = Arrays.copyOf(nameIds, cap);
+            ids = Arrays.copyOf(ids, cap);
+            minPlayers = Arrays.copyOf(minPlayers, cap);
+            maxPlayers = Arrays.copyOf(maxPlayers, cap);
+            minTime = Arrays.copyOf(minTime, cap);
+            maxTime = Arrays.copyOf(maxTime, cap);
+            rank = Arrays.copyOf(rank, cap);
+            year = Arrays.copyOf(year, cap);
+            rating = Arrays.copyOf(rating, cap);
+            difficulty = Arrays.copyOf(difficulty, cap);
+        }
+    }
+
+    /**
+     * Set of row keys (id and name id packed in a long), open addressing without boxing.
+     */
+    private static final class RowKeys {
+        /** Keys plus one, 0 for an empty slot. Name ids are never negative, so no key is -1. */
+        private long[] slots = new long[1024];
+        /** Keys held. */
+        private int count;
+
+        /**
+         * Adds a key.
+         *
+         * @param key the key.
+         * @return true if it was not held already.
+         */
+        boolean add(long key) {
+            if ((count + 1) * 2 > slots.length) {
+                long[] old = slots;
+                slots = new long[old.length * 2];
+                for (long stored : old) {
+                    if (stored != 0) {
+                        slots[slot(stored)] = stored;
+                    }
+                }
+            }
+            long stored = key + 1;
+            int slot = slot(stored);
+            if (slots[slot] == stored) {
+                return false;
+            }
+            slots[slot] = stored;
+            count++;
+            return true;
+        }
+
+        /**
+         * Finds the slot holding a stored key, or the empty slot it would go in.
+         *
+         * @param stored the key plus one.
+         * @return the slot.
+         */
+        private int slot(long stored) {
+            int mask = slots.length - 1;
+            long hash = stored * 0x9E3779B97F4A7C15L;
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (slots[slot] != 0 && slots[slot] != stored) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Maps each distinct name to a dense id while the table is built.
+     */
+    private static final class NameDictionary {
+        /** Name to id lookup. */
+        private final Map<String, Integer> lookup = new HashMap<>();
+        /** Names in id order. */
+        private String[] names = new String[16];
+
+        /**
+         * Get the id of a name, adding it if it has not been seen.
+         *
+         * @param name the name.
+         * @return the dense id of the name.
+         */
+        int idOf(String name) {
+            Integer id = lookup.get(name);
+            if (id == null) {
+                id = lookup.size();
+                if (id == names.length) {
+                    names = Arrays.copyOf(names, names.length * 2);
+                }
+                names[id] = name;
+                lookup.put(name, id);
+            }
+            return id;
+        }
+
+        /**
+         * Get a name.
+         *
+         * @param id the name id.
+         * @return the name.
+         */
+        String get(int id) {
+            return names[id];
+        }
+
+        /**
+         * Get the number of names.
+         *
+         * @return the count.
+         */
+        int size() {
+            return lookup.size();
+        }
+
+        /**
+         * Get the names in id order.
+         *
+         * @return the distinct names.
+         */
+        String[] toArray() {
+            return Arrays.copyOf(names, lookup.size());
+        }
+    }
+
+    /**
+     * Works out the order of a column while a table is built.
+     */
+    @FunctionalInterface
+    interface OrderSource {
+        /**
+         * Get the order of a column.
+         *
+         * @param table the table being built, with its columns already set.
+         * @param col   the sortable column.
+         * @return the order.
+         */
+        SortOrder orderOf(GameTable table, GameData col);
+    }
+}
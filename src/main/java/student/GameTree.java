@@ -0,0 +1,256 @@
+package student;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Ordered set of games that can also be addressed by position (an order statistic tree).
+ *
+ * A treap: a binary search tree on the order, kept balanced (in expectation) by random node
+ * priorities, with the size of each subtree stored in its root. The sizes turn a position into
+ * a path from the root, so reading, inserting or removing at a position is O(log n), and a
+ * whole range of positions is cut out with two splits and a merge, also O(log n).
+ */
+final class GameTree implements Iterable<BoardGame> {
+    /** The order of the games. */
+    private final Comparator<BoardGame> order;
+    /** The root, null when empty. */
+    private Node root;
+    /** State of the priority generator. */
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Creates an empty tree.
+     *
+     * @param order the order of the games; games comparing equal are the same game.
+     */
+    GameTree(Comparator<BoardGame> order) {
+        this.order = order;
+    }
+
+    /**
+     * Get the number of games.
+     *
+     * @return the size.
+     */
+    int size() {
+        return size(root);
+    }
+
+    /** Removes every game. */
+    void clear() {
+        root = null;
+    }
+
+    /**
+     * Adds a game, unless an equal one is in the tree.
+     *
+     * @param game the game.
+     * @return true if it was added.
+     */
+    boolean add(BoardGame game) {
+        int index = lowerBound(game);
+        if (index < size() && order.compare(get(index), game) == 0) {
+            return false;
+        }
+        Node[] parts = split(root, index);
+        root = merge(merge(parts[0], new Node(game, nextPriority())), parts[1]);
+        return true;
+    }
+
+    /**
+     * Get the game at a position.
+     *
+     * @param index the position, from 0.
+     * @return the game.
+     * @throws IndexOutOfBoundsException if there is no such position.
+     */
+    BoardGame get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int left = size(node.left);
+            if (index < left) {
+                node = node.left;
+            } else if (index == left) {
+                return node.game;
+            } else {
+                index -= left + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Get the position of the first game not before a probe.
+     *
+     * @param probe the probe, compared with the order of the tree.
+     * @return the position, size() if every game is before the probe.
+     */
+    int lowerBound(BoardGame probe) {
+        int index = 0;
+        Node node = root;
+        while (node != null) {
+            if (order.compare(node.game, probe) < 0) {
+                index += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Removes the games in a range of positions.
+     *
+     * @param from first position, inclusive.
+     * @param to   last position, exclusive.
+     * @throws IndexOutOfBoundsException if the range is not within the tree.
+     */
+    void removeRange(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Range: " + from + "-" + to + ", size: " + size());
+        }
+        Node[] head = split(root, from);
+        Node[] tail = split(head[1], to - from);
+        root = merge(head[0], tail[1]);
+    }
+
+    @Override
+    public Iterator<BoardGame> iterator() {
+        return new Iterator<>() {
+            private final Deque<Node> path = new ArrayDeque<>();
+            private Node next = root;
+
+            @Override
+            public boolean hasNext() {
+                return next != null || !path.isEmpty();
+            }
+
+            @Override
+            public BoardGame next() {
+                while (next != null) {
+                    path.push(next);
+                    next = next.left;
+                }
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node node = path.pop();
+                next = node.right;
+                return node.game;
+            }
+        };
+    }
+
+    /**
+     * Splits a subtree by position.
+     *
+     * @param node  the subtree.
+     * @param count the number of games in the first part.
+     * @return the first count games, and the rest.
+     */
+    private static Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[2];
+        }
+        int left = size(node.left);
+        if (count <= left) {
+            Node[] parts = split(node.left, count);
+            node.left = parts[1];
+            parts[1] = node.update();
+            return parts;
+        }
+        Node[] parts = split(node.right, count - left - 1);
+        node.right = parts[0];
+        parts[0] = node.update();
+        return parts;
+    }
+
+    /**
+     * Joins two subtrees, every game of the first coming before every game of the second.
+     *
+     * @param first  the first subtree.
+     * @param second the second subtree.
+     * @return the joined subtree.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            return first.update();
+        }
+        second.left = merge(first, second.left);
+        return second.update();
+    }
+
+    /**
+     * Get the size of a subtree.
+     *
+     * @param node the subtree, may be null.
+     * @return its size.
+     */
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Draws a node priority (xorshift), the same sequence for every tree.
+     *
+     * @return the priority.
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 32);
+    }
+
+    /**
+     * A node of the tree.
+     */
+    private static final class Node {
+        /** The game. */
+        private final BoardGame game;
+        /** Heap priority, higher nearer the root. */
+        private final int priority;
+        /** Games in the subtree. */
+        private int size = 1;
+        /** Games before. */
+        private Node left;
+        /** Games after. */
+        private Node right;
+
+        /**
+         * Creates a leaf.
+         *
+         * @param game     the game.
+         * @param priority the heap priority.
+         */
+        Node(BoardGame game, int priority) {
+            this.game = game;
+            this.priority = priority;
+        }
+
+        /**
+         * Recomputes the size after a child changed.
+         *
+         * @return this node.
+         */
+        Node update() {
+            size = 1 + GameTree.size(left) + GameTree.size(right);
+            return this;
+        }
+    }
+}
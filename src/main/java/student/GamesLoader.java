@@ -1,28 +1,38 @@
 package student;
 
-import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * Loads the games from the csv file into a set of BoardGame objects.
  * This file is stored in the resources folder, and while it is
  * passed in - often tends to be more fixed.
  * 
- * It assumes there are no comma's in the data (and does not handle errors if
- * there are extra commas like in the name).
+ * Quoted fields (commas, quotes or line breaks inside a name) follow RFC 4180. Rows that still
+ * cannot be used are skipped; pass a {@link LoadStats} to find out how many and why.
  * 
+ * The file is streamed through {@link GameCsvParser}, so it is never held in memory as lines.
+ * Files on disk can instead be memory mapped and parsed in parallel chunks.
  */
 public final class GamesLoader {
-    /** Standard csv delim. */
-    private static final String DELIMITER = ",";
+    /** Target size of one chunk of a mapped file. */
+    private static final int CHUNK_SIZE = 16 << 20;
+    /** Bytes read at a time when looking for a line end. */
+    private static final int PROBE_SIZE = 4096;
+    /** Bytes read at a time when following the lines of a whole file to split it. */
+    private static final int SCAN_SIZE = 1 << 20;
 
     /** private constructor to prevent instantiation. */
     private GamesLoader() {
@@ -35,86 +45,325 @@ public final class GamesLoader {
      * @return a set of BoardGame objects
      */
     public static Set<BoardGame> loadGamesFile(String filename) {
+        return loadGamesFile(filename, new LoadStats());
+    }
 
+    /**
+     * Loads the games from the csv file into a set of BoardGame objects, counting the rows
+     * skipped.
+     * 
+     * @param filename the name of the file to load
+     * @param stats    counts the rows loaded and skipped
+     * @return a set of BoardGame objects
+     */
+    public static Set<BoardGame> loadGamesFile(String filename, LoadStats stats) {
         Set<BoardGame> games = new HashSet<>();
-
-        List<String> lines;
-        try {
-            // this is so we can store the files in the resources folder
-            InputStream is = GamesLoader.class.getResourceAsStream(filename);
-            InputStreamReader isr = new InputStreamReader(is, StandardCharsets.UTF_8);
-            BufferedReader reader = new BufferedReader(isr);
-            lines = reader.lines().collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("Error reading file: " + e.getMessage());
-            return games;
+        if (!readGames(filename, stats, game -> keep(games, game, stats))) {
+            return new HashSet<>();
         }
-        if (lines == null || lines.isEmpty()) {
-            return games;
+        return games;
+    }
+
+    /**
+     * Loads the games from the csv file into a column store, with its indexes built.
+     *
+     * Rows go straight into the table in file order, skipping repeats of a game already seen
+     * (same name and id). Building the indexes here (including the name trigrams) means the
+     * cost is paid once at load time instead of on the first query.
+     *
+     * @param filename the name of the file to load
+     * @return the indexed table of games
+     */
+    public static GameTable loadGameTable(String filename) {
+        return loadGameTable(filename, new LoadStats());
+    }
+
+    /**
+     * Loads the games from the csv file into a column store, with its indexes built, counting
+     * the rows skipped.
+     *
+     * @param filename the name of the file to load
+     * @param stats    counts the rows loaded and skipped
+     * @return the indexed table of games
+     */
+    public static GameTable loadGameTable(String filename, LoadStats stats) {
+        GameTable.Builder builder = new GameTable.Builder();
+        if (!readGames(filename, stats, game -> keep(builder, game, stats))) {
+            return new GameTable.Builder().build().buildIndexes();
         }
+        return builder.build().buildIndexes();
+    }
+
+    /**
+     * Loads the games from a csv file on disk into a column store, with its indexes built.
+     *
+     * @param file the file to load
+     * @return the indexed table of games
+     * @throws IOException if the file cannot be read
+     * @see #loadGameTable(Path, ParallelSettings)
+     */
+    public static GameTable loadGameTable(Path file) throws IOException {
+        return loadGameTable(file, ParallelSettings.defaults());
+    }
 
-        Map<GameData, Integer> columnMap = processHeader(lines.remove(0));
+    /**
+     * Loads the games from a csv file on disk into a column store, with its indexes built.
+     *
+     * The file is memory mapped and split into chunks of about 16 MiB that end on line
+     * boundaries, found by one pass over the file that skips line breaks inside quoted fields as
+     * the streaming parser does. Each chunk is mapped on its own, so files past 2 GiB load too, and parsed
+     * straight from the mapping without copying it. Chunks are parsed in parallel on the pool of
+     * the settings, a window of one chunk per thread at a time, each into columns of its own that
+     * are appended to the table in file order; only that window of chunk columns is held beside
+     * the table. Repeats are found from the table's own columns, not a set of games.
+     *
+     * @param file     the file to load
+     * @param settings the pool to parse on
+     * @return the indexed table of games
+     * @throws IOException if the file cannot be read
+     */
+    public static GameTable loadGameTable(Path file, ParallelSettings settings)
+            throws IOException {
+        return loadGameTable(file, settings, new LoadStats());
+    }
 
-        games = lines.stream().map(line -> toBoardGame(line, columnMap))
-                .filter(game -> game != null).collect(Collectors.toSet());
+    /**
+     * Loads the games from a csv file on disk into a column store, with its indexes built,
+     * counting the rows skipped.
+     *
+     * Chunks end only at line breaks outside quoted fields, so a name holding a line break
+     * loads as it does from a stream wherever the chunks fall.
+     *
+     * @param file     the file to load
+     * @param settings the pool to parse on
+     * @param stats    counts the rows loaded and skipped
+     * @return the indexed table of games
+     * @throws IOException if the file cannot be read
+     */
+    public static GameTable loadGameTable(Path file, ParallelSettings settings, LoadStats stats)
+            throws IOException {
+        return loadGameTable(file, settings, stats, CHUNK_SIZE);
+    }
 
-        return games;
+    /**
+     * Loads a csv file on disk through memory mapped chunks.
+     *
+     * @param file      the file to load
+     * @param settings  the pool to parse on
+     * @param stats     counts the rows loaded and skipped
+     * @param chunkSize the target size of a chunk in bytes
+     * @return the indexed table of games
+     * @throws IOException if the file cannot be read
+     */
+    static GameTable loadGameTable(Path file, ParallelSettings settings, LoadStats stats,
+            int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerStart = 0;
+            long headerEnd = lineEnd(channel, headerStart, size);
+            while (headerEnd == headerStart && headerStart < size) {
+                headerStart++; // blank lines before the header
+                headerEnd = lineEnd(channel, headerStart, size);
+            }
+            GameTable.Builder builder = new GameTable.Builder();
+            if (headerStart == size) {
+                return builder.build().buildIndexes();
+            }
+            int headerLength = (int) (headerEnd - headerStart);
+            GameCsvParser header = GameCsvParser.forHeader(
+                    map(channel, headerStart, headerLength), 0, headerLength, stats);
 
+            List<Long> bounds = chunkBounds(channel, Math.min(headerEnd + 1, size), size,
+                    chunkSize);
+            int chunks = bounds.size() - 1;
+            int window = Math.min(chunks, settings.getPool().getParallelism());
+            if (window <= 1) {
+                // one chunk at a time: rows go straight from the mapped file into the table
+                GameCsvParser parser = header.copy();
+                for (int c = 0; c < chunks; c++) {
+                    long from = bounds.get(c);
+                    int length = (int) (bounds.get(c + 1) - from);
+                    parser.parseLines(map(channel, from, length), 0, length,
+                            game -> keep(builder, game, stats));
+                }
+                return builder.build().buildIndexes();
+            }
+
+            // a window of chunks is parsed at once, each into its own columns, which are then
+            // appended to the table in file order
+            for (int first = 0; first < chunks; first += window) {
+                int base = first;
+                int count = Math.min(window, chunks - first);
+                GameTable.Builder[] parsed = new GameTable.Builder[count];
+                try {
+                    settings.forEachRange(count, 1, (from, to) -> {
+                        GameCsvParser parser = header.copy();
+                        for (int c = from; c < to; c++) {
+                            long chunkStart = bounds.get(base + c);
+                            int length = (int) (bounds.get(base + c + 1) - chunkStart);
+                            GameTable.Builder rows = new GameTable.Builder();
+                            try {
+                                parser.parseLines(map(channel, chunkStart, length), 0, length,
+                                        rows::add);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            parsed[c] = rows;
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                for (GameTable.Builder rows : parsed) {
+                    int added = builder.addAllIfAbsent(rows);
+                    stats.loaded(added);
+                    stats.skipped(LoadStats.Reason.DUPLICATE, rows.size() - added);
+                }
+            }
+            return builder.build().buildIndexes();
+        }
     }
 
     /**
-     * Converts a line from the csv file into a BoardGame object.
-     * 
-     * @param line      the line to convert
-     * @param columnMap the map of columns to index
-     * @return a BoardGame object
+     * Maps a range of a file, to be parsed in place.
+     *
+     * @param channel the open file
+     * @param from    the first byte
+     * @param length  the number of bytes
+     * @return the mapped bytes
+     * @throws IOException if the range cannot be mapped
      */
-    private static BoardGame toBoardGame(String line, Map<GameData, Integer> columnMap) {
-        String[] columns = line.split(DELIMITER);
-        if (columns.length < columnMap.values().stream().max(Integer::compareTo).get()) {
-            return null;
+    private static MappedByteBuffer map(FileChannel channel, long from, int length)
+            throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+    }
+
+    /**
+     * Finds the end of the line starting at a position of a file.
+     *
+     * @param channel the open file
+     * @param from    the start of the line
+     * @param size    the size of the file
+     * @return the position of the first line break at or after from outside quoted fields, or
+     *         size
+     * @throws IOException if the file cannot be read
+     */
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        GameCsvParser.LineScanner lines = new GameCsvParser.LineScanner();
+        long position = from;
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read < 0) {
+                break;
+            }
+            int end = lines.lineEnd(probe, 0, read);
+            if (end < read) {
+                return position + end;
+            }
+            position += read;
         }
+        return size;
+    }
 
-        try {
-            BoardGame game = new BoardGame(columns[columnMap.get(GameData.NAME)],
-                    Integer.parseInt(columns[columnMap.get(GameData.ID)]),
-                    Integer.parseInt(columns[columnMap.get(GameData.MIN_PLAYERS)]),
-                    Integer.parseInt(columns[columnMap.get(GameData.MAX_PLAYERS)]),
-                    Integer.parseInt(columns[columnMap.get(GameData.MIN_TIME)]),
-                    Integer.parseInt(columns[columnMap.get(GameData.MAX_TIME)]),
-                    Double.parseDouble(columns[columnMap.get(GameData.DIFFICULTY)]),
-                    Integer.parseInt(columns[columnMap.get(GameData.RANK)]),
-                    Double.parseDouble(columns[columnMap.get(GameData.RATING)]),
-                    Integer.parseInt(columns[columnMap.get(GameData.YEAR)]));
-            return game;
-        } catch (NumberFormatException e) {
-            // skip if there is an issue
-            return null;
+    /**
+     * Splits the lines of a file into chunks of at least chunkSize bytes, the last excepted.
+     *
+     * The lines are followed one after another from the first, with the quote state of
+     * {@link GameCsvParser.LineScanner}, so a chunk never ends inside a quoted field: scanning
+     * from an arbitrary byte could not tell whether a line break is quoted.
+     *
+     * @param channel   the open file
+     * @param start     the start of the first line
+     * @param size      the size of the file
+     * @param chunkSize the target size of a chunk in bytes
+     * @return the start of every chunk, then size
+     * @throws IOException if the file cannot be read
+     */
+    private static List<Long> chunkBounds(FileChannel channel, long start, long size,
+            int chunkSize) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        ByteBuffer scan = ByteBuffer.allocateDirect(SCAN_SIZE);
+        GameCsvParser.LineScanner lines = new GameCsvParser.LineScanner();
+        long next = start + chunkSize; // the next chunk starts after the first line end from here
+        long position = start;
+        while (next < size && position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read < 0) {
+                break;
+            }
+            for (int end = lines.lineEnd(scan, 0, read); end < read;
+                    end = lines.lineEnd(scan, end + 1, read)) {
+                lines.reset();
+                if (position + end >= next) {
+                    bounds.add(position + end + 1);
+                    next = position + end + 1 + chunkSize;
+                }
+            }
+            position += read;
+        }
+        if (bounds.get(bounds.size() - 1) < size) {
+            bounds.add(size);
         }
+        return bounds;
     }
 
     /**
-     * Processes the header line to determine the column mapping.
-     * 
-     * It is common to do this for csv files as the columns can be in any order.
-     * This makes it order independent by taking a moment to link the columns
-     * with their actual index in the file.
-     * 
-     * @param header the header line
-     * @return a map of column to index
+     * Streams the games of a csv resource to a sink.
+     *
+     * @param filename the name of the file to load
+     * @param stats    counts the rows skipped
+     * @param sink     receives every parsed game
+     * @return false if the file could not be read
      */
-    private static Map<GameData, Integer> processHeader(String header) {
-        Map<GameData, Integer> columnMap = new HashMap<>();
-        String[] columns = header.split(DELIMITER);
-        for (int i = 0; i < columns.length; i++) {
-            try {
-                GameData col = GameData.fromColumnName(columns[i]);
-                columnMap.put(col, i);
-            } catch (IllegalArgumentException e) {
-                // System.out.println("Ignoring column: " + columns[i]);
+    private static boolean readGames(String filename, LoadStats stats,
+            Consumer<BoardGame> sink) {
+        // this is so we can store the files in the resources folder
+        try (InputStream is = GamesLoader.class.getResourceAsStream(filename)) {
+            if (is == null) {
+                throw new FileNotFoundException(filename);
             }
+            GameCsvParser.read(is, GameCsvParser.DEFAULT_BUFFER_SIZE, stats, sink);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Keeps a game unless the same game was already kept, counting it either way.
+     *
+     * @param kept  the games kept so far
+     * @param game  the game
+     * @param stats counts the rows loaded and skipped
+     * @return true if the game is new
+     */
+    private static boolean keep(Set<BoardGame> kept, BoardGame game, LoadStats stats) {
+        if (kept.add(game)) {
+            stats.loaded();
+            return true;
+        }
+        stats.skipped(LoadStats.Reason.DUPLICATE);
+        return false;
+    }
+
+    /**
+     * Adds a game to a table unless the same game was already added, counting it either way.
+     *
+     * @param builder the table being built
+     * @param game    the game
+     * @param stats   counts the rows loaded and skipped
+     */
+    private static void keep(GameTable.Builder builder, BoardGame game, LoadStats stats) {
+        if (builder.addIfAbsent(game)) {
+            stats.loaded();
+        } else {
+            stats.skipped(LoadStats.Reason.DUPLICATE);
         }
-        return columnMap;
     }
 
 }
@@ -1,5 +1,6 @@
 package student;
 
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -115,6 +116,38 @@ public interface IPlanner {
      */
     Stream<BoardGame> filter(String filter, GameData sortOn, boolean ascending);
 
+    /**
+     * Filters the board games, returning only one page of the sorted results.
+     *
+     * Works like {@link #filter(String, GameData, boolean)}, and the progressive filter still
+     * holds every matching game, but only the games from offset to offset + limit are returned.
+     * Implementations can use this to avoid sorting results that will never be shown.
+     *
+     * @param filter The filter to apply to the board games.
+     * @param sortOn The column to sort the results on.
+     * @param ascending Whether to sort the results in ascending order or descending order.
+     * @param limit The most games to return.
+     * @param offset The number of sorted games to skip.
+     * @return A stream of at most limit board games that match the filter.
+     */
+    default Stream<BoardGame> filter(String filter, GameData sortOn, boolean ascending, int limit,
+            int offset) {
+        return filter(filter, sortOn, ascending).skip(offset).limit(limit);
+    }
+
+    /**
+     * Get the current filtered games as a list, in the order of {@link #filter(String)}.
+     *
+     * Lets callers count the games, or pick them by position or name, without filtering or
+     * sorting again. Implementations can return a view that does only the work those positions
+     * need; this default copies the sorted result.
+     *
+     * @return the current filtered games, in ascending name order.
+     */
+    default ResultView currentResults() {
+        return ResultView.of(filter("").collect(Collectors.toList()));
+    }
+
     /**
      * Resets the collection to have no filters applied.
      */
@@ -0,0 +1,115 @@
+package student;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of the rows a load kept and the rows it skipped, by reason.
+ *
+ * Bad rows never stop a load, they are left out. These counts say how many were left out and
+ * why, so a drop in data quality shows up instead of games going missing silently. Safe to
+ * update from the threads of a parallel load.
+ */
+public final class LoadStats {
+    /**
+     * Why a row was skipped.
+     */
+    public enum Reason {
+        /** The line has fewer fields than the header needs. */
+        TOO_FEW_FIELDS,
+        /** A numeric field is not a number. */
+        BAD_NUMBER,
+        /** A quoted field is not closed, or has text after its closing quote. */
+        BAD_QUOTES,
+        /** The same game (name and id) appeared earlier in the file. */
+        DUPLICATE
+    }
+
+    /** Rows loaded. */
+    private final LongAdder loaded = new LongAdder();
+    /** Rows skipped, by reason. */
+    private final Map<Reason, LongAdder> skipped = new EnumMap<>(Reason.class);
+
+    /** Creates empty counts. */
+    public LoadStats() {
+        for (Reason reason : Reason.values()) {
+            skipped.put(reason, new LongAdder());
+        }
+    }
+
+    /** Counts a row loaded. */
+    void loaded() {
+        loaded.increment();
+    }
+
+    /**
+     * Counts rows loaded.
+     *
+     * @param rows the number of rows.
+     */
+    void loaded(int rows) {
+        loaded.add(rows);
+    }
+
+    /**
+     * Counts a row skipped.
+     *
+     * @param reason why it was skipped.
+     */
+    void skipped(Reason reason) {
+        skipped.get(reason).increment();
+    }
+
+    /**
+     * Counts rows skipped for the same reason.
+     *
+     * @param reason why they were skipped.
+     * @param rows   the number of rows.
+     */
+    void skipped(Reason reason, int rows) {
+        skipped.get(reason).add(rows);
+    }
+
+    /**
+     * Get the number of rows loaded.
+     *
+     * @return the count.
+     */
+    public long getLoaded() {
+        return loaded.sum();
+    }
+
+    /**
+     * Get the number of rows skipped for a reason.
+     *
+     * @param reason the reason.
+     * @return the count.
+     */
+    public long getSkipped(Reason reason) {
+        return skipped.get(reason).sum();
+    }
+
+    /**
+     * Get the number of rows skipped for any reason.
+     *
+     * @return the count.
+     */
+    public long getSkipped() {
+        long total = 0;
+        for (LongAdder count : skipped.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("LoadStats{loaded=").append(getLoaded());
+        for (Reason reason : Reason.values()) {
+            text.append(", ").append(reason.name().toLowerCase()).append('=')
+                    .append(getSkipped(reason));
+        }
+        return text.append('}').toString();
+    }
+}
@@ -0,0 +1,178 @@
+package student;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Distinct names packed as UTF-8 into one byte array, addressed by dense name id.
+ *
+ * Two arrays hold every name, instead of a String object (and its backing array) per name, so
+ * a large dictionary costs little more than its text. Names are decoded when asked for, so
+ * callers that need one name many times should keep the String.
+ *
+ * The layout matches the string table of a {@link GameSnapshot}, which reads straight into it.
+ */
+final class NameArena {
+    /** UTF-8 bytes of every name, back to back. */
+    private final byte[] bytes;
+    /** End offset of each name in bytes, by name id. */
+    private final int[] ends;
+
+    /**
+     * Creates an arena over packed names. The arrays are owned by the arena from now on.
+     *
+     * @param bytes UTF-8 bytes of every name, back to back.
+     * @param ends  end offset of each name in bytes, by name id.
+     */
+    NameArena(byte[] bytes, int[] ends) {
+        this.bytes = bytes;
+        this.ends = ends;
+    }
+
+    /**
+     * Packs a list of names.
+     *
+     * @param names the names, by name id.
+     * @return the arena.
+     */
+    static NameArena of(String[] names) {
+        Builder builder = new Builder();
+        for (String name : names) {
+            builder.append(name);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the number of names.
+     *
+     * @return the number of names.
+     */
+    int size() {
+        return ends.length;
+    }
+
+    /**
+     * Decodes a name.
+     *
+     * @param id the name id.
+     * @return the name.
+     */
+    String get(int id) {
+        int start = id == 0 ? 0 : ends[id - 1];
+        return new String(bytes, start, ends[id] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes every name.
+     *
+     * @return the names, by name id.
+     */
+    String[] toArray() {
+        String[] names = new String[ends.length];
+        for (int id = 0; id < names.length; id++) {
+            names[id] = get(id);
+        }
+        return names;
+    }
+
+    /**
+     * Get the end offset of each name. Shared, do not modify.
+     *
+     * @return the end offsets, by name id.
+     */
+    int[] ends() {
+        return ends;
+    }
+
+    /**
+     * Get the packed bytes. Shared, do not modify.
+     *
+     * @return the UTF-8 bytes of every name.
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Packs names as they are first seen, handing out dense ids.
+     */
+    static final class Builder {
+        /** Name to id lookup, dropped once built. */
+        private final Map<String, Integer> lookup = new HashMap<>();
+        /** Bytes so far. */
+        private byte[] bytes = new byte[256];
+        /** Bytes used. */
+        private int length;
+        /** End offsets so far. */
+        private int[] ends = new int[16];
+        /** Names added. */
+        private int size;
+
+        /**
+         * Get the id of a name, adding it if it has not been seen.
+         *
+         * @param name the name.
+         * @return the dense id of the name.
+         */
+        int idOf(String name) {
+            Integer id = lookup.get(name);
+            if (id == null) {
+                id = append(name);
+                lookup.put(name, id);
+            }
+            return id;
+        }
+
+        /**
+         * Decodes a name added so far.
+         *
+         * @param id the name id.
+         * @return the name.
+         */
+        String get(int id) {
+            int start = id == 0 ? 0 : ends[id - 1];
+            return new String(bytes, start, ends[id] - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Get the number of names added.
+         *
+         * @return the count.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Adds a name without checking for an earlier copy.
+         *
+         * @param name the name.
+         * @return its id.
+         */
+        private int append(String name) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            if (length + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            length += encoded.length;
+            if (size == ends.length) {
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            ends[size] = length;
+            return size++;
+        }
+
+        /**
+         * Builds the arena, trimmed to the names added.
+         *
+         * @return the arena.
+         */
+        NameArena build() {
+            return new NameArena(Arrays.copyOf(bytes, length), Arrays.copyOf(ends, size));
+        }
+    }
+}
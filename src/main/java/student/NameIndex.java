@@ -0,0 +1,469 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index over the lower case game names of a GameTable.
+ *
+ * Works on the table's name dictionary, so every distinct name is indexed once. It holds:
+ * <ul>
+ * <li>a gram index from every one, two and three character run of a name to the names
+ * containing it. {@code name~=value} of one or two characters is answered by a single posting
+ * list; longer values intersect the lists of their trigrams and verify the few candidates left
+ * with contains. Grams are packed into a long and kept in an open addressing table, so a lookup
+ * allocates nothing.</li>
+ * <li>the names in sorted order, where a whole name ({@code name==value}) is found by binary
+ * search.</li>
+ * <li>the rows for each name, so matching names turn back into row ids without a scan.</li>
+ * </ul>
+ */
+final class NameIndex {
+    /** Length of the longest grams in the gram index. */
+    private static final int GRAM = 3;
+    /** Returned when nothing matches. */
+    private static final int[] NONE = new int[0];
+
+    /** The distinct lower case names, by name id. */
+    private final String[] lowerNames;
+    /** Name ids ordered by lower case name. */
+    private final int[] sortedNameIds;
+    /** Gram to the ascending ids of the names containing it. */
+    private final GramMap postings;
+    /** Start of each name's rows in rowsByName, length is names + 1. */
+    private final int[] rowOffsets;
+    /** Row ids grouped by name id. */
+    private final int[] rowsByName;
+
+    /**
+     * Creates the index, see {@link #build(GameTable, int[])}.
+     *
+     * @param lowerNames    distinct lower case names.
+     * @param sortedNameIds name ids in name order.
+     * @param postings      gram postings.
+     * @param rowOffsets    start of each name's rows.
+     * @param rowsByName    row ids grouped by name.
+     */
+    private NameIndex(String[] lowerNames, int[] sortedNameIds, GramMap postings,
+            int[] rowOffsets, int[] rowsByName) {
+        this.lowerNames = lowerNames;
+        this.sortedNameIds = sortedNameIds;
+        this.postings = postings;
+        this.rowOffsets = rowOffsets;
+        this.rowsByName = rowsByName;
+    }
+
+    /**
+     * Builds the name index of a table, reusing the name order if it was worked out before.
+     *
+     * @param table         the table to index.
+     * @param sortedNameIds the name ids in name order, as {@link #nameOrder(GameTable)} gives
+     *                      them, or null to sort the names.
+     * @return the index.
+     * @throws IllegalArgumentException if the order does not hold every name.
+     */
+    static NameIndex build(GameTable table, int[] sortedNameIds) {
+        int names = table.nameCount();
+        String[] lowerNames = lowerNames(table);
+        if (sortedNameIds == null) {
+            sortedNameIds = sort(lowerNames);
+        } else if (sortedNameIds.length != names) {
+            throw new IllegalArgumentException("Name order holds " + sortedNameIds.length
+                    + " names, the table " + names);
+        }
+
+        // gram postings, ids are visited in order so every list comes out sorted
+        GramMap postings = new GramMap();
+        for (int id = 0; id < names; id++) {
+            String name = lowerNames[id];
+            for (int i = 0; i < name.length(); i++) {
+                for (int length = 1; length <= GRAM && i + length <= name.length(); length++) {
+                    postings.add(gram(name, i, length), id);
+                }
+            }
+        }
+        postings.trim();
+
+        // rows of each name, grouped (counting sort on name id)
+        int size = table.size();
+        int[] rowOffsets = new int[names + 1];
+        for (int row = 0; row < size; row++) {
+            rowOffsets[table.getNameId(row) + 1]++;
+        }
+        for (int id = 0; id < names; id++) {
+            rowOffsets[id + 1] += rowOffsets[id];
+        }
+        int[] fill = Arrays.copyOf(rowOffsets, names);
+        int[] rowsByName = new int[size];
+        for (int row = 0; row < size; row++) {
+            rowsByName[fill[table.getNameId(row)]++] = row;
+        }
+
+        return new NameIndex(lowerNames, sortedNameIds, postings, rowOffsets, rowsByName);
+    }
+
+    /**
+     * Works out the name order of a table without building the index.
+     *
+     * @param table the table.
+     * @return the name ids ordered by lower case name.
+     */
+    static int[] nameOrder(GameTable table) {
+        return sort(lowerNames(table));
+    }
+
+    /**
+     * Works out the name order of a table by merging, when it is a previous table with a few rows
+     * changed, as {@link SortOrder#merge(GameTable, GameData, SortOrder, int[], int[])} does for
+     * the columns.
+     *
+     * The names of the kept rows are read off the previous name order in one pass, only the
+     * names first seen in the changed rows are sorted, and the two runs are merged.
+     *
+     * @param table    the new table.
+     * @param previous the previous table.
+     * @param newRowOf new row id of each previous row, -1 if it was removed.
+     * @return the name ids of the new table ordered by lower case name.
+     */
+    static int[] mergeOrder(GameTable table, GameTable previous, int[] newRowOf) {
+        int names = table.nameCount();
+        int[] newNameOf = new int[previous.nameCount()];
+        Arrays.fill(newNameOf, -1);
+        boolean[] kept = new boolean[names];
+        for (int row = 0; row < newRowOf.length; row++) {
+            if (newRowOf[row] >= 0) {
+                int id = table.getNameId(newRowOf[row]);
+                newNameOf[previous.getNameId(row)] = id;
+                kept[id] = true;
+            }
+        }
+        int[] keptOrder = new int[names];
+        int keptCount = 0;
+        for (int oldId : previous.getNameOrder()) {
+            if (newNameOf[oldId] >= 0) {
+                keptOrder[keptCount++] = newNameOf[oldId];
+            }
+        }
+        int[] added = new int[names - keptCount];
+        int addedCount = 0;
+        for (int id = 0; id < names; id++) {
+            if (!kept[id]) {
+                added[addedCount++] = id;
+            }
+        }
+        String[] lowerNames = lowerNames(table);
+        RowSorter.sort(added, (a, b) -> lowerNames[a].compareTo(lowerNames[b]));
+
+        int[] order = new int[names];
+        int left = 0;
+        int right = 0;
+        for (int i = 0; i < names; i++) {
+            if (right >= added.length || left < keptCount
+                    && lowerNames[keptOrder[left]].compareTo(lowerNames[added[right]]) <= 0) {
+                order[i] = keptOrder[left++];
+            } else {
+                order[i] = added[right++];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Get the lower case names of a table.
+     *
+     * @param table the table.
+     * @return the lower case names, by name id.
+     */
+    private static String[] lowerNames(GameTable table) {
+        String[] lowerNames = new String[table.nameCount()];
+        for (int id = 0; id < lowerNames.length; id++) {
+            lowerNames[id] = table.getLowerDictionaryName(id);
+        }
+        return lowerNames;
+    }
+
+    /**
+     * Sorts name ids by name, used for prefix and equality lookups.
+     *
+     * @param lowerNames the lower case names, by name id.
+     * @return the name ids in name order.
+     */
+    private static int[] sort(String[] lowerNames) {
+        int[] sortedNameIds = new int[lowerNames.length];
+        for (int id = 0; id < sortedNameIds.length; id++) {
+            sortedNameIds[id] = id;
+        }
+        RowSorter.sort(sortedNameIds, (id1, id2) -> lowerNames[id1].compareTo(lowerNames[id2]));
+        return sortedNameIds;
+    }
+
+    /**
+     * Get the name ids in name order.
+     *
+     * @return the order, not to be modified.
+     */
+    int[] nameOrder() {
+        return sortedNameIds;
+    }
+
+    /**
+     * Packs a run of up to three characters of a string into a gram key. The length is kept in
+     * the top bits, so grams of different lengths never share a key, and no key is 0.
+     *
+     * @param text   the text.
+     * @param start  index of the first character.
+     * @param length the number of characters, 1 to 3.
+     * @return the gram key.
+     */
+    private static long gram(String text, int start, int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = (key << 16) | text.charAt(i);
+        }
+        return key;
+    }
+
+    /**
+     * Finds the names that contain a lower case value.
+     *
+     * @param lowerValue the value to search for.
+     * @return ascending name ids of the matching names. Shared when the value is shorter than a
+     *         trigram, do not modify.
+     */
+    int[] containing(String lowerValue) {
+        if (lowerValue.isEmpty()) {
+            int[] all = new int[lowerNames.length];
+            Arrays.setAll(all, id -> id);
+            return all;
+        }
+        if (lowerValue.length() < GRAM) {
+            // the posting list of a short gram is exactly the names containing it
+            int[] list = postings.get(gram(lowerValue, 0, lowerValue.length()));
+            return list == null ? NONE : list;
+        }
+
+        // gather the postings of every gram in the value, shortest first
+        List<int[]> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= lowerValue.length(); i++) {
+            int[] list = postings.get(gram(lowerValue, i, GRAM));
+            if (list == null) {
+                return NONE;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+
+        int[] candidates = lists.get(0);
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+
+        // grams can match out of order, so confirm each candidate
+        int[] found = new int[candidates.length];
+        int count = 0;
+        for (int id : candidates) {
+            if (lowerNames[id].contains(lowerValue)) {
+                found[count++] = id;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Finds the names equal to a lower case value.
+     *
+     * @param lowerValue the value to search for.
+     * @return the matching name ids, more than one if names differ only by case.
+     */
+    int[] equalTo(String lowerValue) {
+        int pos = lowerBound(lowerValue);
+        int count = 0;
+        while (pos + count < sortedNameIds.length
+                && lowerNames[sortedNameIds[pos + count]].equals(lowerValue)) {
+            count++;
+        }
+        return Arrays.copyOfRange(sortedNameIds, pos, pos + count);
+    }
+
+    /**
+     * Counts the rows holding any of the passed in names.
+     *
+     * @param nameIds the name ids.
+     * @return the number of rows.
+     */
+    int rowCount(int[] nameIds) {
+        int count = 0;
+        for (int id : nameIds) {
+            count += rowOffsets[id + 1] - rowOffsets[id];
+        }
+        return count;
+    }
+
+    /**
+     * Builds a bitmap of the rows holding any of the passed in names.
+     *
+     * @param nameIds   the name ids.
+     * @param tableSize the number of rows in the table.
+     * @return bitmap of the rows.
+     */
+    RowBitmap rows(int[] nameIds, int tableSize) {
+        RowBitmap bitmap = new RowBitmap(tableSize);
+        for (int id : nameIds) {
+            for (int i = rowOffsets[id]; i < rowOffsets[id + 1]; i++) {
+                bitmap.set(rowsByName[i]);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * First position in name order whose name is not less than the value.
+     *
+     * @param lowerValue the value.
+     * @return the position in sortedNameIds.
+     */
+    private int lowerBound(String lowerValue) {
+        int low = 0;
+        int high = sortedNameIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lowerNames[sortedNameIds[mid]].compareTo(lowerValue) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Intersects two ascending id lists.
+     *
+     * @param a first list.
+     * @param b second list.
+     * @return ids in both, ascending.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    /**
+     * Open addressing table from gram key to posting list, without boxing.
+     *
+     * Lists grow in place while the index is built, and are trimmed to size once at the end.
+     */
+    private static final class GramMap {
+        /** Keys, 0 for an empty slot. */
+        private long[] keys = new long[1024];
+        /** Posting list of each slot. */
+        private int[][] lists = new int[1024][];
+        /** Ids used in each list while building. */
+        private int[] sizes = new int[1024];
+        /** Grams held. */
+        private int count;
+
+        /**
+         * Adds a name id to the list of a gram, ignoring a repeat of the last one (a gram seen
+         * twice in one name).
+         *
+         * @param key the gram key.
+         * @param id  the name id, not less than the last one added to the gram.
+         */
+        void add(long key, int id) {
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                if ((count + 1) * 2 > keys.length) {
+                    grow();
+                    slot = slot(key);
+                }
+                keys[slot] = key;
+                lists[slot] = new int[2];
+                count++;
+            }
+            int size = sizes[slot];
+            int[] list = lists[slot];
+            if (size > 0 && list[size - 1] == id) {
+                return;
+            }
+            if (size == list.length) {
+                list = Arrays.copyOf(list, size * 2);
+                lists[slot] = list;
+            }
+            list[size] = id;
+            sizes[slot] = size + 1;
+        }
+
+        /**
+         * Trims every list to its size, once building is done.
+         */
+        void trim() {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != 0 && lists[slot].length != sizes[slot]) {
+                    lists[slot] = Arrays.copyOf(lists[slot], sizes[slot]);
+                }
+            }
+        }
+
+        /**
+         * Get the posting list of a gram.
+         *
+         * @param key the gram key.
+         * @return the ascending name ids, or null if no name holds the gram.
+         */
+        int[] get(long key) {
+            return lists[slot(key)];
+        }
+
+        /**
+         * Finds the slot of a key, or the empty slot it would go in.
+         *
+         * @param key the gram key.
+         * @return the slot.
+         */
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            long hash = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Doubles the table.
+         */
+        private void grow() {
+            long[] oldKeys = keys;
+            int[][] oldLists = lists;
+            int[] oldSizes = sizes;
+            keys = new long[oldKeys.length * 2];
+            lists = new int[keys.length][];
+            sizes = new int[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    lists[slot] = oldLists[i];
+                    sizes[slot] = oldSizes[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package student;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * When and where the planner splits work across threads.
+ *
+ * Tables smaller than the threshold are filtered and sorted on the calling thread, as the cost
+ * of handing out work would outweigh the gain. Larger ones split filter evaluation into row
+ * ranges and sort with a parallel merge sort, all on the configured ForkJoinPool.
+ */
+public final class ParallelSettings {
+    /** Default number of rows before work is split across threads. */
+    public static final int DEFAULT_THRESHOLD = 250_000;
+    /** Settings that never go parallel. */
+    public static final ParallelSettings SEQUENTIAL =
+            new ParallelSettings(Integer.MAX_VALUE, ForkJoinPool.commonPool());
+
+    /** Smallest number of rows handed to one task. */
+    private static final int MIN_CHUNK = 4096;
+
+    /** Rows at or above which work is split. */
+    private final int threshold;
+    /** Pool the work runs on. */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates settings.
+     *
+     * @param threshold the number of rows at which work is split across threads.
+     * @param pool      the pool to run on.
+     */
+    public ParallelSettings(int threshold, ForkJoinPool pool) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    /**
+     * Get the default settings: the default threshold on the common pool.
+     *
+     * @return the default settings.
+     */
+    public static ParallelSettings defaults() {
+        return new ParallelSettings(DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Get the number of rows at which work is split across threads.
+     *
+     * @return the threshold.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Get the pool work runs on.
+     *
+     * @return the pool.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Checks if work over a number of rows should be split.
+     *
+     * @param rows the number of rows.
+     * @return true if the work should run in parallel.
+     */
+    boolean isParallel(int rows) {
+        return rows >= threshold && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Runs an action over [0, length) split into ranges, on the pool, and waits for it.
+     *
+     * @param length   the length of the range.
+     * @param minChunk the smallest range handed to one task.
+     * @param action   the action, called once per range.
+     */
+    void forEachRange(int length, int minChunk, RangeAction action) {
+        int chunk = Math.max(minChunk, length / (pool.getParallelism() * 4));
+        pool.invoke(new RangeTask(0, length, chunk, action));
+    }
+
+    /**
+     * Runs an action over the words of a row bitmap split into ranges, each covering at least
+     * {@value #MIN_CHUNK} rows. Ranges never share a word, so tasks can write their words freely.
+     *
+     * @param words  the number of words in the bitmap.
+     * @param action the action, called once per range of words.
+     */
+    void forEachWordRange(int words, RangeAction action) {
+        forEachRange(words, MIN_CHUNK / Long.SIZE, action);
+    }
+
+    /**
+     * Sorts ints with a parallel merge sort on the pool.
+     *
+     * The values are split as {@link #forEachRange} splits a range, by the parallelism of the
+     * configured pool, each piece sorted on its own and the sorted halves merged back up.
+     *
+     * @param values the values, sorted in place.
+     */
+    void sort(int[] values) {
+        int chunk = Math.max(MIN_CHUNK, values.length / (pool.getParallelism() * 4));
+        if (values.length <= chunk) {
+            Arrays.sort(values);
+            return;
+        }
+        pool.invoke(new SortTask(values, new int[values.length], 0, values.length, chunk));
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelSettings{threshold=" + threshold + ", parallelism="
+                + pool.getParallelism() + '}';
+    }
+
+    /**
+     * Work over a half open range.
+     */
+    @FunctionalInterface
+    interface RangeAction {
+        /**
+         * Does the work for a range.
+         *
+         * @param from first index, inclusive.
+         * @param to   last index, exclusive.
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Merge sorts a range of ints: halves are sorted in parallel, then merged.
+     */
+    private static final class SortTask extends RecursiveAction {
+        /** Serialization version. */
+        private static final long serialVersionUID = 1L;
+        /** The values being sorted. */
+        private final int[] values;
+        /** Scratch space as long as the values. */
+        private final int[] buffer;
+        /** First index, inclusive. */
+        private final int from;
+        /** Last index, exclusive. */
+        private final int to;
+        /** Largest range to sort without splitting. */
+        private final int chunk;
+
+        /**
+         * Creates a task.
+         *
+         * @param values the values being sorted.
+         * @param buffer scratch space as long as the values.
+         * @param from   first index, inclusive.
+         * @param to     last index, exclusive.
+         * @param chunk  largest range to sort without splitting.
+         */
+        SortTask(int[] values, int[] buffer, int from, int to, int chunk) {
+            this.values = values;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                Arrays.sort(values, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(values, buffer, from, mid, chunk),
+                    new SortTask(values, buffer, mid, to, chunk));
+            if (values[mid - 1] <= values[mid]) {
+                return; // already in order
+            }
+            int left = from;
+            int right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || left < mid && values[left] <= values[right]) {
+                    buffer[i] = values[left++];
+                } else {
+                    buffer[i] = values[right++];
+                }
+            }
+            System.arraycopy(buffer, from, values, from, to - from);
+        }
+    }
+
+    /**
+     * Splits a range in halves until the pieces are small enough to run.
+     */
+    private static final class RangeTask extends RecursiveAction {
+        /** Serialization version. */
+        private static final long serialVersionUID = 1L;
+        /** First index, inclusive. */
+        private final int from;
+        /** Last index, exclusive. */
+        private final int to;
+        /** Largest range to run without splitting. */
+        private final int chunk;
+        /** The work. */
+        private final transient RangeAction action;
+
+        /**
+         * Creates a task.
+         *
+         * @param from   first index, inclusive.
+         * @param to     last index, exclusive.
+         * @param chunk  largest range to run without splitting.
+         * @param action the work.
+         */
+        RangeTask(int from, int to, int chunk, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                action.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, chunk, action), new RangeTask(mid, to, chunk, action));
+        }
+    }
+}
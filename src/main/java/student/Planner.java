@@ -1,202 +1,207 @@
 package student;
 
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 
+/**
+ * A planner session: one user's progressive filter over a shared {@link GameCatalog}.
+ *
+ * The only state a session owns is a reference to its current filter result and the filter
+ * that produced it: one conjunction of the conditions applied since the last reset, merged as
+ * filters are added (repeated conditions are kept once, and a tighter bound replaces a looser
+ * one), so it stays as small as the filter the user actually built. Sessions are cheap to
+ * create. A single session is meant to be used by one user at a time; many sessions
+ * can run in parallel over the same catalog.
+ *
+ * Sessions from a {@link CatalogReloader} follow its latest catalog. When a new version has
+ * been published, the next call replays the session's filters on it, so the user keeps their
+ * progressive filter over the updated games.
+ */
 public class Planner implements IPlanner {
 
     /**
-     * Original full dataset
+     * Where the latest catalog comes from.
      */
-    private final Set<BoardGame> allGames;
+    private final Supplier<GameCatalog> source;
 
     /**
-     * Current filtered games
+     * Shared games, orders, indexes and filter cache.
      */
-    private Set<BoardGame> filteredGames;
+    private GameCatalog catalog;
+
+    /**
+     * Original full dataset, stored column by column.
+     */
+    private GameTable table;
+
+    /**
+     * Current filtered games, with their sort order once known.
+     */
+    private FilterState filteredGames;
+
+    /**
+     * Conjunction of the filters applied since the last reset, replayed when the catalog changes.
+     */
+    private CompiledFilter applied = CompiledFilter.EMPTY;
 
     public Planner(Set<BoardGame> games) {
-        // TODO Auto-generated method stub
-        this.allGames = new HashSet<>(games);
-        this.filteredGames = new HashSet<>(games);
+        this(GameCatalog.of(games));
+    }
+
+    /**
+     * Builds a planner directly over a column store, in a catalog of its own.
+     *
+     * @param table the games to plan over.
+     */
+    public Planner(GameTable table) {
+        this(new GameCatalog(table));
+    }
+
+    /**
+     * Builds a planner session over a shared catalog.
+     *
+     * @param catalog the games to plan over.
+     * @see GameCatalog#newSession()
+     */
+    public Planner(GameCatalog catalog) {
+        this(() -> catalog);
+    }
+
+    /**
+     * Builds a planner session that follows the latest catalog of a source.
+     *
+     * @param source supplies the catalog to plan over, checked on every call.
+     * @see CatalogReloader#newSession()
+     */
+    Planner(Supplier<GameCatalog> source) {
+        this.source = source;
+        this.catalog = source.get();
+        this.table = catalog.getTable();
+        this.filteredGames = catalog.getAllGames();
     }
 
     @Override
     public Stream<BoardGame> filter(String filter) {
-        // TODO Auto-generated method stub
         return filter(filter, GameData.NAME, true);
     }
 
     @Override
     public Stream<BoardGame> filter(String filter, GameData sortOn) {
-        // TODO Auto-generated method stub
         return filter(filter, sortOn, true);
     }
 
     @Override
     public Stream<BoardGame> filter(String filter, GameData sortOn, boolean ascending) {
-        // TODO Auto-generated method stub
-        Set<BoardGame> filteredSet = new HashSet<>(filteredGames);
-
-        // Apply filters if any
-        if (filter != null && !filter.trim().isEmpty()) {
-            String[] conditions = filter.split(",");
-            for (String condition : conditions) {
-                filteredSet = filterOnce(condition.trim(), filteredSet.stream()).collect(Collectors.toSet());
-            }
-        }
-
-        // Sort
-        List<BoardGame> sortedList = new ArrayList<>(filteredSet);
+        return filter(filter, sortOn, ascending, Integer.MAX_VALUE, 0);
+    }
 
-        // **Apply sorting based on GameData column**
-        if (sortOn != null) {
-            sortedList.sort((game1, game2) -> {
-                int comparison = compareGames(game1, game2, sortOn);
-                return ascending ? comparison : -comparison; // Reverse order if descending
-            });
+    @Override
+    public Stream<BoardGame> filter(String filter, GameData sortOn, boolean ascending, int limit,
+            int offset) {
+        if (limit < 0 || offset < 0) {
+            throw new IllegalArgumentException("limit and offset must not be negative");
+        }
+        follow();
+        GameTable games = table;
+        // Apply filters if any, compiled once per distinct filter text
+        CompiledFilter compiled = catalog.getFilterCache().get(filter);
+        FilterState state = filteredGames;
+        if (!compiled.isEmpty()) {
+            state = state.narrow(
+                    compiled.apply(games, state.rows(), catalog.getParallelSettings()));
+            applied = applied.and(compiled);
         }
 
-        // Update to store filtered results
-        filteredGames = new HashSet<>(sortedList);
+        // Update to store filtered results (the whole result, not just the page)
+        filteredGames = state;
 
-        return sortedList.stream();
+        int from = Math.min(offset, state.count());
+        int to = (int) Math.min((long) offset + limit, state.count());
+        int[] rows = state.page(sortOn, ascending, from, to);
+        return IntStream.of(rows).mapToObj(games::getGame);
     }
 
     @Override
     public void reset() {
-        // TODO Auto-generated method stub
-        this.filteredGames = new HashSet<>(allGames);
+        this.catalog = source.get();
+        this.table = catalog.getTable();
+        this.filteredGames = catalog.getAllGames();
+        applied = CompiledFilter.EMPTY;
     }
 
-    public Set<BoardGame> getFilteredGames() {
-        return new HashSet<>(filteredGames);
-    }
-
-    private Stream<BoardGame> filterOnce(String filter, Stream<BoardGame> filteredGames) {
-        Operations operator = Operations.getOperatorFromStr(filter);
-        if (operator == null) {
-            return filteredGames;
+    /**
+     * Moves the session to the latest catalog if a new one was published, applying the filter
+     * built since the last reset to it in one pass.
+     */
+    private void follow() {
+        GameCatalog latest = source.get();
+        if (latest == catalog) {
+            return;
         }
-
-        // Remove spaces for consistency
-        filter = filter.replaceAll(" ", "");
-
-        // Split filter string by the operator
-        String[] parts = filter.split(operator.getOperator());
-        if (parts.length != 2) {
-            return filteredGames;
-        }
-
-        GameData column;
-        try {
-            column = GameData.fromString(parts[0]);
-        } catch (IllegalArgumentException e) {
-            return filteredGames;
+        GameTable latestTable = latest.getTable();
+        FilterState state = latest.getAllGames();
+        if (!applied.isEmpty()) {
+            state = state.narrow(
+                    applied.apply(latestTable, state.rows(), latest.getParallelSettings()));
         }
+        this.catalog = latest;
+        this.table = latestTable;
+        this.filteredGames = state;
+    }
 
-        String value = parts[1].trim();
+    /**
+     * Get the current filtered games.
+     *
+     * @return a read only view of the games, not a copy.
+     */
+    public Set<BoardGame> getFilteredGames() {
+        follow();
+        return filteredGames.asSet();
+    }
 
-        return filteredGames.filter(game -> applyFilter(game, column, operator, value));
+    /**
+     * Get the current filtered games as a list in ascending name order, without copying or
+     * sorting them up front.
+     *
+     * @return a view of the current result; later filters do not change it.
+     */
+    @Override
+    public ResultView currentResults() {
+        follow();
+        return filteredGames.view();
     }
 
-    private boolean applyFilter(BoardGame game, GameData column, Operations operator, String value) {
-        if (column == GameData.ID) return true;
-
-        try {
-            // Handle Name Case
-            if (column == GameData.NAME) {
-                if (operator == Operations.CONTAINS) {
-                    // Only applies to string-based NAME filter
-                    return game.getName().toLowerCase().contains(value.toLowerCase());
-                }
-
-                if (operator == Operations.EQUALS) {
-                    return game.getName().toLowerCase().equals(value.toLowerCase());
-                }
-
-                // Ignore contains operation for non-string fields
-                return true;
-            }
-
-            // HANDLE NUMERIC COMPARISONS (==, !=, >, <, >=, <=)
-            // Convert value to double
-            double numericValue = Double.parseDouble(value);
-
-            // HANDLE NUMERIC COMPARISONS (Cast int fields to double)
-            switch (column) {
-                case RANK:
-                    return operatorCompare((double) game.getRank(), numericValue, operator);
-                case MIN_PLAYERS:
-                    return operatorCompare((double) game.getMinPlayers(), numericValue, operator);
-                case MAX_PLAYERS:
-                    return operatorCompare((double) game.getMaxPlayers(), numericValue, operator);
-                case MIN_TIME:
-                    return operatorCompare((double) game.getMinPlayTime(), numericValue, operator);
-                case MAX_TIME:
-                    return operatorCompare((double) game.getMaxPlayTime(), numericValue, operator);
-                case YEAR:
-                    return operatorCompare((double) game.getYearPublished(), numericValue, operator);
-                case RATING:
-                    return operatorCompare(game.getRating(), numericValue, operator);
-                case DIFFICULTY:
-                    return operatorCompare(game.getDifficulty(), numericValue, operator);
-                default:
-                    return true; // Ignore unsupported filters
-            }
-        } catch (NumberFormatException e) {
-            return true; // Ignore if value is not a valid number
-        }
+    /**
+     * Get the filter built since the last reset.
+     *
+     * @return the conjunction of the conditions applied.
+     */
+    CompiledFilter getAppliedFilter() {
+        return applied;
     }
 
-    private boolean operatorCompare(double val1, double val2, Operations operator) {
-        switch (operator) {
-            case EQUALS:
-                return val1 == val2;
-            case NOT_EQUALS:
-                return val1 != val2;
-            case GREATER_THAN:
-                return val1 > val2;
-            case LESS_THAN:
-                return val1 < val2;
-            case GREATER_THAN_EQUALS:
-                return val1 >= val2;
-            case LESS_THAN_EQUALS:
-                return val1 <= val2;
-            default:
-                return true; // Ignore invalid cases
-        }
+    /**
+     * Get the cache of compiled filters, including its hit and miss counts.
+     *
+     * @return the filter cache, shared with every session of the catalog.
+     */
+    public FilterCache getFilterCache() {
+        return catalog.getFilterCache();
     }
 
-    private int compareGames(BoardGame game1, BoardGame game2, GameData sortOn) {
-        switch (sortOn) {
-            case NAME:
-                return game1.getName().compareToIgnoreCase(game2.getName());
-            case MIN_PLAYERS:
-                return Integer.compare(game1.getMinPlayers(), game2.getMinPlayers());
-            case MAX_PLAYERS:
-                return Integer.compare(game1.getMaxPlayers(), game2.getMaxPlayers());
-            case MIN_TIME:
-                return Integer.compare(game1.getMinPlayTime(), game2.getMinPlayTime());
-            case MAX_TIME:
-                return Integer.compare(game1.getMaxPlayTime(), game2.getMaxPlayTime());
-            case DIFFICULTY:
-                return Double.compare(game1.getDifficulty(), game2.getDifficulty());
-            case RANK:
-                return Integer.compare(game1.getRank(), game2.getRank());
-            case RATING:
-                return Double.compare(game1.getRating(), game2.getRating());
-            case YEAR:
-                return Integer.compare(game1.getYearPublished(), game2.getYearPublished());
-            default:
-                throw new IllegalArgumentException("Unsupported sort column: " + sortOn);
-        }
+    /**
+     * Get the catalog this session plans over.
+     *
+     * @return the catalog.
+     */
+    public GameCatalog getCatalog() {
+        follow();
+        return catalog;
     }
 
+
 }
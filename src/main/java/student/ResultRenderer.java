@@ -0,0 +1,432 @@
+package student;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Formatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes filter results to a writer, a chunk of rows at a time.
+ *
+ * Rows are appended to one reused buffer, through one reused {@link Formatter} for the numbers
+ * that need formatting, and the buffer goes to the writer whenever it holds {@link #CHUNK}
+ * characters, so printing a large result costs a few writes instead of one formatted print per
+ * game. Nothing is collected: games are written as the stream hands them out.
+ *
+ * Three formats are supported:
+ * <ul>
+ * <li>{@link Format#TEXT}, the console listing: a number, the name, and the value of the sort
+ * column in brackets, formatted as {@link BoardGame#toStringWithInfo(GameData)} formats
+ * them;</li>
+ * <li>{@link Format#TSV}, a header of the collection's column names then every column of each
+ * game, separated by tabs;</li>
+ * <li>{@link Format#JSON}, an array with an object per game, keyed by the same column
+ * names, with null for a rating or difficulty that is not a number.</li>
+ * </ul>
+ */
+final class ResultRenderer {
+    /** Characters buffered before they are written. */
+    static final int CHUNK = 8192;
+
+    /** Output formats. */
+    enum Format {
+        /** Numbered names, with the sort column. */
+        TEXT,
+        /** Tab separated columns. */
+        TSV,
+        /** Array of objects. */
+        JSON;
+
+        /**
+         * Get the format from its name, ignoring case.
+         *
+         * @param name the name.
+         * @return the format.
+         * @throws IllegalArgumentException if no format has that name.
+         */
+        static Format fromString(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("No format with name " + name);
+        }
+    }
+
+    /**
+     * Output options given with a filter command: {@code --page N}, {@code --limit N} and
+     * {@code --format text|tsv|json}, each value after a space or an equals sign.
+     *
+     * Pages count from 1 and hold limit games ({@link #DEFAULT_PAGE_SIZE} if only a page is
+     * given). Without either, every game is shown.
+     */
+    static final class Options {
+        /** Games on a page when a page is asked for without a limit. */
+        static final int DEFAULT_PAGE_SIZE = 50;
+
+        /** The command without the options. */
+        private final String text;
+        /** Page, from 1, or 0 if none was given. */
+        private final int page;
+        /** Games to show, or 0 if no limit was given. */
+        private final int limit;
+        /** The format. */
+        private final Format format;
+
+        /**
+         * Creates options.
+         *
+         * @param text   the command without the options.
+         * @param page   the page, from 1, or 0 if none was given.
+         * @param limit  the games to show, or 0 if no limit was given.
+         * @param format the format.
+         */
+        private Options(String text, int page, int limit, Format format) {
+            this.text = text;
+            this.page = page;
+            this.limit = limit;
+            this.format = format;
+        }
+
+        /**
+         * Takes the options out of a command.
+         *
+         * @param command the command, such as {@code name~=cat sort:rating --page 2}.
+         * @return the options.
+         * @throws IllegalArgumentException if an option is unknown, has no value, or the value is
+         *                                  not valid.
+         */
+        static Options parse(String command) {
+            StringBuilder text = new StringBuilder();
+            int page = 0;
+            int limit = 0;
+            Format format = Format.TEXT;
+            String[] tokens = command.trim().split("\\s+");
+            for (int i = 0; i < tokens.length; i++) {
+                String token = tokens[i];
+                if (!token.startsWith("--")) {
+                    if (!token.isEmpty()) {
+                        text.append(text.length() > 0 ? " " : "").append(token);
+                    }
+                    continue;
+                }
+                String name = token;
+                String value;
+                int equals = token.indexOf('=');
+                if (equals >= 0) {
+                    name = token.substring(0, equals);
+                    value = token.substring(equals + 1);
+                } else if (i + 1 < tokens.length) {
+                    value = tokens[++i];
+                } else {
+                    throw new IllegalArgumentException("No value for " + token);
+                }
+                switch (name.toLowerCase()) {
+                    case "--page":
+                        page = positive(name, value);
+                        break;
+                    case "--limit":
+                        limit = positive(name, value);
+                        break;
+                    case "--format":
+                        format = Format.fromString(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            return new Options(text.toString(), page, limit, format);
+        }
+
+        /**
+         * Parses the value of a count option.
+         *
+         * @param name  the option.
+         * @param value the value.
+         * @return the value, at least 1.
+         * @throws IllegalArgumentException if the value is not a number of at least 1.
+         */
+        private static int positive(String name, String value) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException(name + " must be a number from 1: " + value);
+        }
+
+        /**
+         * Get the command without the options.
+         *
+         * @return the rest of the command.
+         */
+        String text() {
+            return text;
+        }
+
+        /**
+         * Get the format.
+         *
+         * @return the format.
+         */
+        Format format() {
+            return format;
+        }
+
+        /**
+         * Get the most games to show.
+         *
+         * @return the limit, Integer.MAX_VALUE for all.
+         */
+        int limit() {
+            if (limit > 0) {
+                return limit;
+            }
+            return page > 0 ? DEFAULT_PAGE_SIZE : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Get the number of sorted games before the first one shown.
+         *
+         * @return the offset.
+         */
+        int offset() {
+            return page > 1 ? (int) Math.min((long) (page - 1) * limit(), Integer.MAX_VALUE) : 0;
+        }
+    }
+
+    /** Where the rows go. */
+    private final Writer out;
+    /** The format. */
+    private final Format format;
+    /** Column shown next to the name in text. */
+    private final GameData sortOn;
+    /** Rows not yet written. */
+    private final StringBuilder buffer = new StringBuilder(CHUNK + 256);
+    /** Formats numbers into the buffer, in the format locale of when the renderer was made. */
+    private final Formatter formatter = new Formatter(buffer);
+
+    /**
+     * Creates a renderer.
+     *
+     * @param out    where to write. Flushed after each result, never closed.
+     * @param format the format.
+     * @param sortOn the column shown next to the name in text.
+     */
+    ResultRenderer(Writer out, Format format, GameData sortOn) {
+        this.out = out;
+        this.format = format;
+        this.sortOn = sortOn;
+    }
+
+    /**
+     * Writes a result.
+     *
+     * @param games the games, in order.
+     * @param first number of the first game in text, so later pages carry on counting.
+     * @return the number of games written.
+     * @throws IOException if the writer fails.
+     */
+    int render(Stream<BoardGame> games, int first) throws IOException {
+        int count = 0;
+        start();
+        Iterator<BoardGame> it = games.iterator();
+        while (it.hasNext()) {
+            BoardGame game = it.next();
+            switch (format) {
+                case TSV:
+                    appendTsv(game);
+                    break;
+                case JSON:
+                    appendJson(game, count == 0);
+                    break;
+                default:
+                    appendText(game, first + count);
+            }
+            count++;
+            if (buffer.length() >= CHUNK) {
+                drain();
+            }
+        }
+        end(count);
+        drain();
+        out.flush();
+        return count;
+    }
+
+    /**
+     * Appends what comes before the first game.
+     */
+    private void start() {
+        if (format == Format.TSV) {
+            GameData[] columns = GameData.values();
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                buffer.append(columns[i].getColumnName());
+            }
+            buffer.append(System.lineSeparator());
+        } else if (format == Format.JSON) {
+            buffer.append('[');
+        }
+    }
+
+    /**
+     * Appends what comes after the last game.
+     *
+     * @param count the number of games.
+     */
+    private void end(int count) {
+        if (format == Format.JSON) {
+            if (count > 0) {
+                buffer.append(System.lineSeparator());
+            }
+            buffer.append(']').append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Writes out the buffer and empties it.
+     *
+     * @throws IOException if the writer fails.
+     */
+    private void drain() throws IOException {
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Appends a text row.
+     *
+     * @param game   the game.
+     * @param number its number.
+     */
+    private void appendText(BoardGame game, int number) {
+        buffer.append(number).append(": ").append(game.getName());
+        switch (sortOn) {
+            case RATING:
+                formatter.format(" (%.2f)", game.getRating());
+                break;
+            case DIFFICULTY:
+                formatter.format(" (%.2f)", game.getDifficulty());
+                break;
+            case RANK:
+                formatter.format(" (%d)", game.getRank());
+                break;
+            case MIN_PLAYERS:
+                formatter.format(" (%d)", game.getMinPlayers());
+                break;
+            case MAX_PLAYERS:
+                formatter.format(" (%d)", game.getMaxPlayers());
+                break;
+            case MIN_TIME:
+                formatter.format(" (%d)", game.getMinPlayTime());
+                break;
+            case MAX_TIME:
+                formatter.format(" (%d)", game.getMaxPlayTime());
+                break;
+            case YEAR:
+                formatter.format(" (%d)", game.getYearPublished());
+                break;
+            default:
+                break;
+        }
+        buffer.append(System.lineSeparator());
+    }
+
+    /**
+     * Appends a tab separated row. Tabs and line breaks in names become spaces.
+     *
+     * @param game the game.
+     */
+    private void appendTsv(BoardGame game) {
+        String name = game.getName();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            buffer.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+        buffer.append('\t').append(game.getId())
+                .append('\t').append(game.getRating())
+                .append('\t').append(game.getDifficulty())
+                .append('\t').append(game.getRank())
+                .append('\t').append(game.getMinPlayers())
+                .append('\t').append(game.getMaxPlayers())
+                .append('\t').append(game.getMinPlayTime())
+                .append('\t').append(game.getMaxPlayTime())
+                .append('\t').append(game.getYearPublished())
+                .append(System.lineSeparator());
+    }
+
+    /**
+     * Appends a JSON number, or null for NaN and infinity, which JSON cannot hold.
+     *
+     * @param value the number.
+     */
+    private void appendJsonNumber(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            buffer.append("null");
+        } else {
+            buffer.append(value);
+        }
+    }
+
+    /**
+     * Appends a JSON object, one per line.
+     *
+     * @param game  the game.
+     * @param first true for the first game of the array.
+     */
+    private void appendJson(BoardGame game, boolean first) {
+        buffer.append(first ? "" : ",").append(System.lineSeparator()).append("{\"")
+                .append(GameData.NAME.getColumnName()).append("\":");
+        appendJsonString(game.getName());
+        appendJsonField(GameData.ID).append(game.getId());
+        appendJsonField(GameData.RATING);
+        appendJsonNumber(game.getRating());
+        appendJsonField(GameData.DIFFICULTY);
+        appendJsonNumber(game.getDifficulty());
+        appendJsonField(GameData.RANK).append(game.getRank());
+        appendJsonField(GameData.MIN_PLAYERS).append(game.getMinPlayers());
+        appendJsonField(GameData.MAX_PLAYERS).append(game.getMaxPlayers());
+        appendJsonField(GameData.MIN_TIME).append(game.getMinPlayTime());
+        appendJsonField(GameData.MAX_TIME).append(game.getMaxPlayTime());
+        appendJsonField(GameData.YEAR).append(game.getYearPublished());
+        buffer.append('}');
+    }
+
+    /**
+     * Appends the key of a JSON field after an earlier field.
+     *
+     * @param column the column.
+     * @return the buffer, to append the value to.
+     */
+    private StringBuilder appendJsonField(GameData column) {
+        return buffer.append(",\"").append(column.getColumnName()).append("\":");
+    }
+
+    /**
+     * Appends a JSON string, escaping quotes, backslashes and control characters.
+     *
+     * @param text the text.
+     */
+    private void appendJsonString(String text) {
+        buffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.append('\\').append(c);
+            } else if (c < 0x20) {
+                buffer.append(String.format("\\u%04x", (int) c));
+            } else {
+                buffer.append(c);
+            }
+        }
+        buffer.append('"');
+    }
+}
@@ -0,0 +1,70 @@
+package student;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read only list of the games of a filter result, in ascending name order (the order of
+ * {@link IPlanner#filter(String)}), for commands that pick games by position or name.
+ *
+ * Unlike a stream, the view knows its size without reading any game, and hands out a game or a
+ * range of games by position. Views backed by a planner only sort what those positions need,
+ * and find games by name without sorting at all.
+ */
+public abstract class ResultView extends AbstractList<BoardGame> implements RandomAccess {
+
+    /**
+     * Wraps a list already in order.
+     *
+     * @param games the games, in ascending name order.
+     * @return the view.
+     */
+    public static ResultView of(List<BoardGame> games) {
+        return new ListView(games);
+    }
+
+    /**
+     * Finds the games with a name, ignoring case.
+     *
+     * @param name the name.
+     * @return the games with that name, in no particular order.
+     */
+    public List<BoardGame> withName(String name) {
+        List<BoardGame> games = new ArrayList<>();
+        for (BoardGame game : this) {
+            if (game.getName().equalsIgnoreCase(name)) {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+
+    /**
+     * View over a list.
+     */
+    private static final class ListView extends ResultView {
+        /** The games, in order. */
+        private final List<BoardGame> games;
+
+        /**
+         * Creates the view.
+         *
+         * @param games the games, in order.
+         */
+        ListView(List<BoardGame> games) {
+            this.games = games;
+        }
+
+        @Override
+        public BoardGame get(int index) {
+            return games.get(index);
+        }
+
+        @Override
+        public int size() {
+            return games.size();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package student;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of row ids stored as a bitmap, one bit per row of a GameTable.
+ *
+ * Filters narrow a bitmap in place, and combining conditions is a word by word AND, so a multi
+ * clause filter never builds an intermediate collection of games.
+ */
+final class RowBitmap {
+    /** Bits per word. */
+    private static final int WORD_BITS = 64;
+
+    /** Number of rows the bitmap covers. */
+    private final int size;
+    /** Bits, row r is bit (r % 64) of word (r / 64). */
+    private final long[] words;
+
+    /**
+     * Creates an empty bitmap.
+     *
+     * @param size the number of rows covered.
+     */
+    RowBitmap(int size) {
+        this.size = size;
+        this.words = new long[wordCount(size)];
+    }
+
+    /**
+     * Creates a bitmap over existing words.
+     *
+     * @param size  the number of rows covered.
+     * @param words the bits, not copied.
+     */
+    private RowBitmap(int size, long[] words) {
+        this.size = size;
+        this.words = words;
+    }
+
+    /**
+     * Creates a bitmap with every row set.
+     *
+     * @param size the number of rows covered.
+     * @return the full bitmap.
+     */
+    static RowBitmap all(int size) {
+        RowBitmap bitmap = new RowBitmap(size);
+        Arrays.fill(bitmap.words, -1L);
+        bitmap.trim();
+        return bitmap;
+    }
+
+    /**
+     * Creates a bitmap with the passed in rows set.
+     *
+     * @param size the number of rows covered.
+     * @param rows the row ids to set.
+     * @return the bitmap.
+     */
+    static RowBitmap of(int size, int[] rows) {
+        return of(size, rows, 0, rows.length);
+    }
+
+    /**
+     * Creates a bitmap with a slice of the passed in rows set.
+     *
+     * @param size the number of rows covered.
+     * @param rows the row ids.
+     * @param from first index into rows, inclusive.
+     * @param to   last index into rows, exclusive.
+     * @return the bitmap.
+     */
+    static RowBitmap of(int size, int[] rows, int from, int to) {
+        RowBitmap bitmap = new RowBitmap(size);
+        for (int i = from; i < to; i++) {
+            bitmap.set(rows[i]);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Get the number of words needed for a number of rows.
+     *
+     * @param size the number of rows.
+     * @return the number of longs.
+     */
+    static int wordCount(int size) {
+        return (size + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    /**
+     * Get the number of rows the bitmap covers (not the number set).
+     *
+     * @return the row capacity.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the backing words. Shared, callers narrowing a bitmap work on these directly.
+     *
+     * @return the words.
+     */
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * Sets a row.
+     *
+     * @param row the row id.
+     */
+    void set(int row) {
+        words[row >>> 6] |= 1L << row;
+    }
+
+    /**
+     * Clears a row.
+     *
+     * @param row the row id.
+     */
+    void clear(int row) {
+        words[row >>> 6] &= ~(1L << row);
+    }
+
+    /**
+     * Checks if a row is set.
+     *
+     * @param row the row id.
+     * @return true if set.
+     */
+    boolean get(int row) {
+        return (words[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Keeps only the rows also set in another bitmap.
+     *
+     * @param other bitmap over the same table.
+     * @return this bitmap.
+     */
+    RowBitmap and(RowBitmap other) {
+        long[] theirs = other.words;
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= theirs[i];
+        }
+        return this;
+    }
+
+    /**
+     * Counts the rows set.
+     *
+     * @return the cardinality.
+     */
+    int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Checks if no rows are set.
+     *
+     * @return true if empty.
+     */
+    boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the next set row at or after a row.
+     *
+     * @param from the row to start from.
+     * @return the next set row, or -1 if there is none.
+     */
+    int nextSetBit(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int index = from >>> 6;
+        long word = words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return index * WORD_BITS + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+    }
+
+    /**
+     * Calls an action for every set row, in ascending order.
+     *
+     * @param action the action to call with each row id.
+     */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                action.accept(i * WORD_BITS + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Lists the set rows.
+     *
+     * @return row ids in ascending order.
+     */
+    int[] toArray() {
+        int[] rows = new int[cardinality()];
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                rows[count++] = i * WORD_BITS + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Copies the bitmap.
+     *
+     * @return an independent copy.
+     */
+    RowBitmap copy() {
+        return new RowBitmap(size, words.clone());
+    }
+
+    /** Clears the unused bits past the last row. */
+    private void trim() {
+        int extra = words.length * WORD_BITS - size;
+        if (extra > 0) {
+            words[words.length - 1] >>>= extra;
+        }
+    }
+}
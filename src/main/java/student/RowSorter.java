@@ -0,0 +1,204 @@
+package student;
+
+/**
+ * Sorting helpers for arrays of row ids.
+ *
+ * Rows are compared through a {@link RowOrder}, which reads primitive column values by row id,
+ * so sorting never boxes the ids. The sorts are stable, so rows passed in ascending order come
+ * out with ties broken by row id. This is used to precompute each column's {@link SortOrder}
+ * once; queries then only sort plain int positions.
+ */
+final class RowSorter {
+    /** Below this length insertion sort beats merging. */
+    private static final int INSERTION_THRESHOLD = 32;
+
+    /**
+     * Comparison of two rows of a table.
+     */
+    @FunctionalInterface
+    interface RowOrder {
+        /**
+         * Compares two rows.
+         *
+         * @param row1 first row id.
+         * @param row2 second row id.
+         * @return negative, zero or positive as row1 sorts before, with or after row2.
+         */
+        int compare(int row1, int row2);
+    }
+
+    /** private constructor to prevent instantiation. */
+    private RowSorter() {
+    }
+
+    /**
+     * Stable sort of row ids by ascending key. NaN keys sort last, as with Double.compare.
+     *
+     * @param rows the row ids to sort, in place.
+     * @param keys key per row id.
+     */
+    static void sortByKey(int[] rows, double[] keys) {
+        sort(rows, (row1, row2) -> Double.compare(keys[row1], keys[row2]));
+    }
+
+    /**
+     * Stable sort of row ids by ascending key.
+     *
+     * @param rows the row ids to sort, in place.
+     * @param keys key per row id.
+     */
+    static void sortByKey(int[] rows, int[] keys) {
+        sort(rows, (row1, row2) -> Integer.compare(keys[row1], keys[row2]));
+    }
+
+    /**
+     * Stable sort of row ids.
+     *
+     * @param rows  the row ids to sort, in place.
+     * @param order the order to sort in.
+     */
+    static void sort(int[] rows, RowOrder order) {
+        if (rows.length < 2) {
+            return;
+        }
+        int[] buffer = rows.clone();
+        mergeSort(buffer, rows, 0, rows.length, order);
+    }
+
+    /**
+     * Selects the k smallest values, using a bounded heap.
+     *
+     * Costs O(n log k) instead of sorting all n values.
+     *
+     * @param values the values, left untouched.
+     * @param k      how many values to keep.
+     * @return the k smallest values (all of them if there are fewer), ascending.
+     */
+    static int[] smallest(int[] values, int k) {
+        int size = Math.min(k, values.length);
+        if (size <= 0) {
+            return new int[0];
+        }
+        // max heap: the root is the largest value kept so far
+        int[] heap = new int[size];
+        int count = 0;
+        for (int value : values) {
+            if (count < size) {
+                heap[count] = value;
+                siftUp(heap, count++);
+            } else if (value < heap[0]) {
+                heap[0] = value;
+                siftDown(heap, count);
+            }
+        }
+
+        // pop the heap from the back, largest first
+        int[] sorted = new int[size];
+        for (int n = size; n > 0; n--) {
+            sorted[n - 1] = heap[0];
+            heap[0] = heap[n - 1];
+            siftDown(heap, n - 1);
+        }
+        return sorted;
+    }
+
+    /**
+     * Moves a newly added heap entry up to its place.
+     *
+     * @param heap  the max heap.
+     * @param index the index of the new entry.
+     */
+    private static void siftUp(int[] heap, int index) {
+        int value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (value <= heap[parent]) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    /**
+     * Moves the root of the heap down to its place.
+     *
+     * @param heap the max heap.
+     * @param size the number of entries in the heap.
+     */
+    private static void siftDown(int[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        int value = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= value) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    /**
+     * Merge sort of src[from, to) into dest[from, to). Both ranges start with the same content.
+     *
+     * @param src   scratch copy of the data.
+     * @param dest  where the sorted result ends up.
+     * @param from  first index, inclusive.
+     * @param to    last index, exclusive.
+     * @param order the order to sort in.
+     */
+    private static void mergeSort(int[] src, int[] dest, int from, int to, RowOrder order) {
+        if (to - from < INSERTION_THRESHOLD) {
+            insertionSort(dest, from, to, order);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(dest, src, from, mid, order);
+        mergeSort(dest, src, mid, to, order);
+
+        // already in order, just copy across
+        if (order.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, from, dest, from, to - from);
+            return;
+        }
+        for (int i = from, left = from, right = mid; i < to; i++) {
+            if (right >= to || left < mid && order.compare(src[left], src[right]) <= 0) {
+                dest[i] = src[left++];
+            } else {
+                dest[i] = src[right++];
+            }
+        }
+    }
+
+    /**
+     * Stable insertion sort of a small range.
+     *
+     * @param rows  the row ids.
+     * @param from  first index, inclusive.
+     * @param to    last index, exclusive.
+     * @param order the order to sort in.
+     */
+    private static void insertionSort(int[] rows, int from, int to, RowOrder order) {
+        for (int i = from + 1; i < to; i++) {
+            int row = rows[i];
+            int j = i - 1;
+            while (j >= from && order.compare(rows[j], row) > 0) {
+                rows[j + 1] = rows[j];
+                j--;
+            }
+            rows[j + 1] = row;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package student;
+
+/**
+ * Precomputed ascending order of one GameData column.
+ *
+ * Holds the row ids of the table in sorted order, plus the inverse: the position of every row
+ * in that order. A sorted result is then a filter over the sorted row ids (or a plain int sort
+ * of positions), and descending is the same order read backwards, so no comparator runs on the
+ * query path. Ties are broken by row id.
+ */
+final class SortOrder {
+    /** Row ids in ascending order of the column. */
+    private final int[] rows;
+    /** Position of each row id in rows. */
+    private final int[] positions;
+
+    /**
+     * Creates an order from sorted row ids.
+     *
+     * @param rows every row id of the table, in order.
+     */
+    private SortOrder(int[] rows) {
+        this.rows = rows;
+        this.positions = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            positions[rows[i]] = i;
+        }
+    }
+
+    /**
+     * Creates an order from row ids already sorted elsewhere, such as a snapshot.
+     *
+     * @param rows every row id of the table, in order. Owned by the order from now on.
+     * @return the order.
+     */
+    static SortOrder fromRows(int[] rows) {
+        return new SortOrder(rows);
+    }
+
+    /**
+     * Builds the order of a column of a table.
+     *
+     * Names compare ignoring case. Their order is worked out once over the distinct names of
+     * the dictionary, and each row then sorts on the int rank of its name (a collation key).
+     * Numbers sort as Double.compare / Integer.compare would.
+     *
+     * @param table  the table.
+     * @param column the column, anything but ID.
+     * @return the order.
+     */
+    static SortOrder build(GameTable table, GameData column) {
+        int size = table.size();
+        int[] rows = new int[size];
+        for (int row = 0; row < size; row++) {
+            rows[row] = row;
+        }
+        if (column == GameData.NAME) {
+            int[] nameRanks = nameRanks(table);
+            int[] keys = new int[size];
+            for (int row = 0; row < size; row++) {
+                keys[row] = nameRanks[table.getNameId(row)];
+            }
+            RowSorter.sortByKey(rows, keys);
+        } else if (GameTable.isDoubleColumn(column)) {
+            RowSorter.sortByKey(rows, table.doubleColumn(column));
+        } else if (GameTable.isIntColumn(column) && column != GameData.ID) {
+            RowSorter.sortByKey(rows, table.intColumn(column));
+        } else {
+            throw new IllegalArgumentException("Unsupported sort column: " + column);
+        }
+        return new SortOrder(rows);
+    }
+
+    /**
+     * Works out the order of a column by merging, when a table is a previous one with a few rows
+     * changed.
+     *
+     * The rows kept from the previous table keep their values and relative order, so they are
+     * read off the previous order in one pass. Only the added rows are sorted, and the two runs
+     * are merged: O(n + k log k) for k added rows instead of a full sort.
+     *
+     * @param table      the new table.
+     * @param column     the column, anything but ID.
+     * @param previous   the order of the column in the previous table.
+     * @param newRowOf   new row id of each previous row, -1 if it was removed. Kept rows must
+     *                   stay in the same relative order.
+     * @param firstAdded the first row of the new table that is not from the previous one; every
+     *                   row from there on is new.
+     * @return the order.
+     */
+    static SortOrder merge(GameTable table, GameData column, SortOrder previous, int[] newRowOf,
+            int firstAdded) {
+        int[] added = new int[table.size() - firstAdded];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = firstAdded + i;
+        }
+        return merge(table, column, previous, newRowOf, added);
+    }
+
+    /**
+     * Works out the order of a column by merging, when the rows not from the previous table are
+     * anywhere in the new one.
+     *
+     * @param table    the new table.
+     * @param column   the column, anything but ID.
+     * @param previous the order of the column in the previous table.
+     * @param newRowOf new row id of each previous row, -1 if it was removed. Kept rows must stay
+     *                 in the same relative order.
+     * @param added    the ascending rows of the new table that are not from the previous one,
+     *                 left untouched.
+     * @return the order.
+     * @see #merge(GameTable, GameData, SortOrder, int[], int)
+     */
+    static SortOrder merge(GameTable table, GameData column, SortOrder previous, int[] newRowOf,
+            int[] added) {
+        RowSorter.RowOrder order = rowOrder(table, column);
+        int[] kept = new int[table.size() - added.length];
+        int keptCount = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            int row = newRowOf[previous.rowAt(i)];
+            if (row >= 0) {
+                kept[keptCount++] = row;
+            }
+        }
+        added = added.clone();
+        RowSorter.sort(added, order);
+
+        int[] rows = new int[table.size()];
+        int left = 0;
+        int right = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (right >= added.length || left < keptCount
+                    && compare(order, kept[left], added[right]) <= 0) {
+                rows[i] = kept[left++];
+            } else {
+                rows[i] = added[right++];
+            }
+        }
+        return new SortOrder(rows);
+    }
+
+    /**
+     * Compares two rows by a column, breaking ties by row id as the precomputed orders do.
+     *
+     * @param order the column order.
+     * @param row1  the first row.
+     * @param row2  the second row.
+     * @return the comparison.
+     */
+    private static int compare(RowSorter.RowOrder order, int row1, int row2) {
+        int result = order.compare(row1, row2);
+        return result != 0 ? result : Integer.compare(row1, row2);
+    }
+
+    /**
+     * Get the comparison of rows by a column, as {@link #build} sorts them.
+     *
+     * @param table  the table.
+     * @param column the column, anything but ID.
+     * @return the row comparison.
+     */
+    private static RowSorter.RowOrder rowOrder(GameTable table, GameData column) {
+        if (column == GameData.NAME) {
+            return (row1, row2) -> table.getName(row1).compareToIgnoreCase(table.getName(row2));
+        } else if (GameTable.isDoubleColumn(column)) {
+            double[] keys = table.doubleColumn(column);
+            return (row1, row2) -> Double.compare(keys[row1], keys[row2]);
+        } else if (GameTable.isIntColumn(column) && column != GameData.ID) {
+            int[] keys = table.intColumn(column);
+            return (row1, row2) -> Integer.compare(keys[row1], keys[row2]);
+        }
+        throw new IllegalArgumentException("Unsupported sort column: " + column);
+    }
+
+    /**
+     * Ranks the distinct names of a table, ignoring case.
+     *
+     * @param table the table.
+     * @return rank per name id; names equal ignoring case share a rank.
+     */
+    private static int[] nameRanks(GameTable table) {
+        int names = table.nameCount();
+        int[] ids = new int[names];
+        String[] dictionary = new String[names]; // decoded once if the table is compact
+        for (int id = 0; id < names; id++) {
+            ids[id] = id;
+            dictionary[id] = table.getDictionaryName(id);
+        }
+        RowSorter.sort(ids, (id1, id2) -> dictionary[id1].compareToIgnoreCase(dictionary[id2]));
+
+        int[] ranks = new int[names];
+        int rank = 0;
+        for (int i = 0; i < names; i++) {
+            if (i > 0 && dictionary[ids[i - 1]].compareToIgnoreCase(dictionary[ids[i]]) != 0) {
+                rank++;
+            }
+            ranks[ids[i]] = rank;
+        }
+        return ranks;
+    }
+
+    /**
+     * Get the number of rows in the order.
+     *
+     * @return the number of rows.
+     */
+    int size() {
+        return rows.length;
+    }
+
+    /**
+     * Get the sorted row ids. Shared, do not modify.
+     *
+     * @return every row id, in ascending order of the column.
+     */
+    int[] rows() {
+        return rows;
+    }
+
+    /**
+     * Get the row at a position of the order.
+     *
+     * @param position the position, 0 is the smallest value.
+     * @return the row id.
+     */
+    int rowAt(int position) {
+        return rows[position];
+    }
+
+    /**
+     * Get the position of a row in the order.
+     *
+     * @param row the row id.
+     * @return its position.
+     */
+    int positionOf(int row) {
+        return positions[row];
+    }
+}
@@ -0,0 +1,78 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogGeneratorTest {
+
+    @Test
+    void testSameSeedSameCatalog() {
+        GameTable first = CatalogGenerator.table(2000, 7);
+        GameTable second = CatalogGenerator.table(2000, 7);
+        GameTable other = CatalogGenerator.table(2000, 8);
+        int differences = 0;
+        for (int row = 0; row < first.size(); row++) {
+            assertEquals(first.getGame(row).toString(), second.getGame(row).toString());
+            assertEquals(row + 1, first.getId(row));
+            if (!first.getName(row).equals(other.getName(row))) {
+                differences++;
+            }
+        }
+        assertTrue(differences > 1000);
+    }
+
+    @Test
+    void testColumnsStayInRange() {
+        GameTable table = CatalogGenerator.table(20_000, CatalogGenerator.DEFAULT_SEED);
+        double ratings = 0;
+        int unranked = 0;
+        for (int row = 0; row < table.size(); row++) {
+            BoardGame game = table.getGame(row);
+            assertTrue(game.getRating() >= 3 && game.getRating() <= 9.5);
+            assertTrue(game.getDifficulty() >= 1 && game.getDifficulty() <= 5);
+            assertTrue(game.getMinPlayers() <= game.getMaxPlayers());
+            assertTrue(game.getMinPlayTime() <= game.getMaxPlayTime());
+            assertTrue(game.getYearPublished() >= 1950 && game.getYearPublished() <= 2024);
+            ratings += game.getRating();
+            unranked += game.getRank() == 0 ? 1 : 0;
+        }
+        assertEquals(6.5, ratings / table.size(), 0.2);
+        assertEquals(0.1, unranked / (double) table.size(), 0.02);
+        assertTrue(table.nameCount() < table.size()); // names repeat
+    }
+
+    @Test
+    void testCsvAndSnapshotLoadBack(@TempDir Path dir) throws IOException {
+        GameTable generated = CatalogGenerator.table(5000, 3);
+        Path csv = dir.resolve("games.csv");
+        CatalogGenerator.writeCsv(5000, 3, csv);
+        Path snapshot = dir.resolve("games" + GameSnapshot.EXTENSION);
+        CatalogGenerator.writeSnapshot(5000, 3, snapshot);
+
+        LoadStats stats = new LoadStats();
+        GameTable loaded = GamesLoader.loadGameTable(csv, ParallelSettings.SEQUENTIAL, stats);
+        GameTable read = GameSnapshot.read(snapshot);
+        assertEquals(0, stats.getSkipped());
+        assertEquals(generated.size(), loaded.size());
+        assertEquals(generated.size(), read.size());
+        boolean quoted = false;
+        for (int row = 0; row < generated.size(); row++) {
+            assertEquals(generated.getGame(row).toString(), loaded.getGame(row).toString());
+            assertEquals(generated.getGame(row).toString(), read.getGame(row).toString());
+            quoted |= generated.getName(row).contains(",");
+        }
+        assertTrue(quoted);
+    }
+
+    @Test
+    void testNegativeSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CatalogGenerator(-1, 1));
+        CatalogGenerator empty = new CatalogGenerator(0, 1);
+        assertFalse(empty.hasNext());
+        assertThrows(IllegalStateException.class, empty::next);
+    }
+}
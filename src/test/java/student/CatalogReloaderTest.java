@@ -0,0 +1,137 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static student.TableAssertions.assertSameAsRebuilt;
+
+class CatalogReloaderTest {
+
+    private static final String HEADER = "objectname,objectid,average,avgweight,rank,"
+            + "minplayers,maxplayers,minplaytime,maxplaytime,yearpublished\n";
+
+    private static void write(Path file, String... rows) throws IOException {
+        Files.writeString(file, HEADER + String.join("\n", rows) + "\n");
+    }
+
+    private static List<String> names(Planner planner, String filter) {
+        return planner.filter(filter).map(BoardGame::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    void testReloadParsesOnlyChangedRows(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("games.csv");
+        write(file, "Catan,13,7.1,2.3,400,3,4,60,120,1995",
+                "Pandemic,30549,7.6,2.4,100,2,4,45,45,2008",
+                "Azul,230802,7.8,1.8,50,2,4,30,45,2017");
+        CatalogReloader reloader = new CatalogReloader(file, new FilterCache(),
+                ParallelSettings.SEQUENTIAL, CatalogReloader.DEFAULT_SETTLE_MILLIS);
+        assertEquals(1, reloader.getVersion());
+        assertEquals(3, reloader.getParsedRows());
+
+        Planner session = reloader.newSession();
+        assertEquals(List.of("Azul", "Pandemic"), names(session, "rating>7.5"));
+
+        write(file, "Catan,13,7.9,2.3,40,3,4,60,120,1995",
+                "Pandemic,30549,7.6,2.4,100,2,4,45,45,2008",
+                "Azul,230802,7.8,1.8,50,2,4,30,45,2017");
+        assertTrue(reloader.reload());
+        assertEquals(2, reloader.getVersion());
+        assertEquals(1, reloader.getParsedRows());
+        assertEquals(2, reloader.getReusedRows());
+
+        // the session replays its filter on the new version
+        assertEquals(3, session.getFilteredGames().size());
+        assertEquals(List.of("Azul", "Catan", "Pandemic"), names(session, ""));
+        assertSame(reloader.current(), session.getCatalog());
+
+        assertFalse(reloader.reload());
+        assertEquals(2, reloader.getVersion());
+    }
+
+    @Test
+    void testReloadMergesOrders(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("games.csv");
+        List<String> lines = new ArrayList<>();
+        CatalogGenerator generator = new CatalogGenerator(500, CatalogGenerator.DEFAULT_SEED);
+        while (generator.hasNext()) {
+            BoardGame game = generator.next();
+            lines.add(String.join(",", "\"" + game.getName() + "\"",
+                    String.valueOf(game.getId()), String.valueOf(game.getRating()),
+                    String.valueOf(game.getDifficulty()), String.valueOf(game.getRank()),
+                    String.valueOf(game.getMinPlayers()), String.valueOf(game.getMaxPlayers()),
+                    String.valueOf(game.getMinPlayTime()), String.valueOf(game.getMaxPlayTime()),
+                    String.valueOf(game.getYearPublished())));
+        }
+        write(file, lines.toArray(new String[0]));
+        CatalogReloader reloader = new CatalogReloader(file, new FilterCache(),
+                ParallelSettings.SEQUENTIAL, CatalogReloader.DEFAULT_SETTLE_MILLIS);
+
+        lines.set(10, "Zebra Race,10,1.0,1.0,999,2,2,5,5,1990"); // changed row and name
+        lines.remove(20);
+        lines.add(0, lines.remove(300)); // moved ahead
+        lines.add(150, "Aardvark,999999,9.9,4.9,1,1,8,10,600,2024");
+        lines.add(151, lines.get(40)); // duplicate line
+        write(file, lines.toArray(new String[0]));
+        assertTrue(reloader.reload());
+        assertEquals(2, reloader.getParsedRows());
+        assertSameAsRebuilt(reloader.current().getTable());
+        assertEquals(List.of("Aardvark"), names(reloader.newSession(), "name==aardvark"));
+    }
+
+    @Test
+    void testUnchangedCollectionIsNotReloaded(@TempDir Path dir) throws IOException {
+        // the collection has ids shared by rows with different names
+        Path file = dir.resolve("collection.csv");
+        try (InputStream in = CatalogReloaderTest.class.getResourceAsStream("/collection.csv")) {
+            Files.copy(in, file);
+        }
+        CatalogReloader reloader = new CatalogReloader(file, new FilterCache(),
+                ParallelSettings.SEQUENTIAL, CatalogReloader.DEFAULT_SETTLE_MILLIS);
+        int rows = reloader.current().getTable().size();
+
+        assertFalse(reloader.reload());
+        assertEquals(1, reloader.getVersion());
+        assertEquals(0, reloader.getParsedRows());
+        assertEquals(rows, reloader.getReusedRows());
+    }
+
+    @Test
+    void testFailedReloadKeepsCatalog(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("games.csv");
+        write(file, "Catan,13,7.1,2.3,400,3,4,60,120,1995");
+        CatalogReloader reloader = new CatalogReloader(file, new FilterCache(),
+                ParallelSettings.SEQUENTIAL, CatalogReloader.DEFAULT_SETTLE_MILLIS);
+        GameCatalog first = reloader.current();
+
+        Files.delete(file);
+        assertThrows(IOException.class, reloader::reload);
+        assertSame(first, reloader.current());
+    }
+
+    @Test
+    void testWatchReloadsInBackground(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("games.csv");
+        write(file, "Catan,13,7.1,2.3,400,3,4,60,120,1995");
+        try (CatalogReloader reloader = new CatalogReloader(file, new FilterCache(),
+                ParallelSettings.SEQUENTIAL, 50)) {
+            reloader.start();
+            write(file, "Catan,13,7.1,2.3,400,3,4,60,120,1995",
+                    "Azul,230802,7.8,1.8,50,2,4,30,45,2017");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (reloader.getVersion() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(2, reloader.getVersion());
+            assertEquals(2, reloader.current().getTable().size());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static student.TableAssertions.assertSameAsRebuilt;
+
+class ChangeLogTest {
+
+    @Test
+    void testReplayMergesOrders(@TempDir Path dir) throws IOException {
+        GameTable base = GamesLoader.loadGameTable("/collection.csv");
+        int firstId = base.getId(0);
+        int lastId = base.getId(base.size() - 1);
+        try (ChangeLog log = new ChangeLog(dir.resolve("changes.log"))) {
+            log.insert(new BoardGame("Zzz New Game", -1, 2, 4, 30, 60, 2.0, 1, 9.9, 2024));
+            log.update(new BoardGame("aaa renamed", firstId, 1, 8, 5, 500, 4.5, 99999, 1.0, 1900));
+            log.delete(lastId);
+            log.insert(new BoardGame("Another", -2, 1, 1, 10, 10, 1.0, 2, 5.0, 2000));
+            log.delete(-2);
+
+            List<ChangeLog.Change> changes = log.read();
+            assertEquals(5, changes.size());
+            assertEquals(ChangeLog.Kind.UPDATE, changes.get(1).getKind());
+            assertEquals("aaa renamed", changes.get(1).getGame().getName());
+            assertNull(changes.get(2).getGame());
+
+            GameTable updated = ChangeLog.replay(base, changes);
+            assertEquals(base.size(), updated.size());
+            List<Integer> ids = new ArrayList<>();
+            for (int row = 0; row < updated.size(); row++) {
+                ids.add(updated.getId(row));
+            }
+            assertTrue(ids.contains(-1));
+            assertFalse(ids.contains(-2));
+            assertFalse(ids.contains(lastId));
+            assertEquals(1.0, updated.getNumber(GameData.RATING, ids.indexOf(firstId)));
+            assertSameAsRebuilt(updated);
+            assertSame(base, ChangeLog.replay(base, List.of()));
+
+            // replaying the same log again changes nothing more
+            GameTable twice = ChangeLog.replay(updated, changes);
+            assertEquals(updated.size(), twice.size());
+            assertSameAsRebuilt(twice);
+        }
+    }
+
+    @Test
+    void testReplayOntoCompactTableCopiesColumns() {
+        GameTable base = GamesLoader.loadGameTable("/collection.csv");
+        List<ChangeLog.Change> changes = List.of(
+                new ChangeLog.Change(ChangeLog.Kind.DELETE, base.getId(3), null),
+                new ChangeLog.Change(ChangeLog.Kind.INSERT, -1,
+                        new BoardGame("Zzz New Game", -1, 2, 4, 30, 60, 2.0, 1, 9.9, 2024)));
+        GameTable expected = ChangeLog.replay(base, changes);
+        GameTable compact = ChangeLog.replay(base.compact(), changes);
+
+        assertTrue(compact.isCompact());
+        assertEquals(expected.size(), compact.size());
+        assertEquals(expected.nameCount(), compact.nameCount());
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(expected.getGame(row), compact.getGame(row));
+            assertEquals(expected.getName(row), compact.getName(row));
+            for (GameData col : GameData.values()) {
+                if (col != GameData.NAME) {
+                    assertEquals(expected.getNumber(col, row), compact.getNumber(col, row));
+                }
+            }
+        }
+        assertSameAsRebuilt(compact);
+    }
+
+    @Test
+    void testTornTailIsIgnoredAndCut(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("changes.log");
+        try (ChangeLog log = new ChangeLog(file)) {
+            log.insert(new BoardGame("Catan", 13, 3, 4, 60, 120, 2.3, 400, 7.1, 1995));
+            log.delete(13);
+        }
+        long complete = Files.size(file);
+        Files.write(file, new byte[] {0, 0, 0, 40, 0, 1, 2}, StandardOpenOption.APPEND);
+        assertEquals(2, ChangeLog.read(file).size());
+
+        try (ChangeLog log = new ChangeLog(file)) {
+            assertEquals(complete, Files.size(file));
+            log.delete(14);
+            assertEquals(List.of(13, 13, 14), log.read().stream().map(ChangeLog.Change::getId)
+                    .collect(Collectors.toList()));
+        }
+
+        // a torn length that claims far more bytes than the file holds
+        long withDelete = Files.size(file);
+        Files.write(file, new byte[] {0x7F, -1, -1, -1, 9}, StandardOpenOption.APPEND);
+        assertEquals(3, ChangeLog.read(file).size());
+        try (ChangeLog log = new ChangeLog(file)) {
+            assertEquals(withDelete, Files.size(file));
+        }
+
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> ChangeLog.read(file));
+    }
+
+    @Test
+    void testCompactWritesSnapshotAndEmptiesLog(@TempDir Path dir) throws IOException {
+        GameTable base = GamesLoader.loadGameTable("/collection.csv");
+        Path snapshot = dir.resolve("games" + GameSnapshot.EXTENSION);
+        try (ChangeLog log = new ChangeLog(dir.resolve("changes.log"))) {
+            log.delete(base.getId(0));
+            GameTable compacted = log.compact(base, snapshot);
+
+            assertEquals(base.size() - 1, compacted.size());
+            assertTrue(log.read().isEmpty());
+            assertEquals(compacted.size(), GameSnapshot.read(snapshot).size());
+        }
+    }
+
+    @Test
+    void testAppendsWhileCompactingAreKept(@TempDir Path dir) throws Exception {
+        GameTable table = new GameTable.Builder().build();
+        Path snapshot = dir.resolve("games" + GameSnapshot.EXTENSION);
+        int count = 2000;
+        try (ChangeLog log = new ChangeLog(dir.resolve("changes.log"))) {
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int id = 1; id <= count; id++) {
+                        log.insert(new BoardGame("Game " + id, id, 1, 4, 10, 60, 2.0, id, 7.0,
+                                2000));
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                table = log.compact(table, snapshot);
+            }
+            writer.join();
+            table = ChangeLog.replay(GameSnapshot.read(snapshot), log.read());
+        }
+        assertEquals(count, table.size());
+        assertEquals(count, IntStream.range(0, count).map(table::getId).distinct().count());
+    }
+
+    @Test
+    void testReplayOntoCatalogKeepsIndexes() {
+        GameCatalog catalog = new GameCatalog(GamesLoader.loadGameTable("/collection.csv"));
+        GameCatalog updated = ChangeLog.replay(catalog, List.of(new ChangeLog.Change(
+                ChangeLog.Kind.INSERT, -1, new BoardGame("BrandNewGame", -1, 2, 4, 30, 60, 2.0, 1,
+                        9.99, 2024))));
+        assertTrue(updated.getTable().hasIndexes());
+        assertArrayEquals(NameIndex.nameOrder(updated.getTable()),
+                updated.getTable().getNameOrder());
+        assertSame(catalog.getFilterCache(), updated.getFilterCache());
+        assertEquals(List.of("BrandNewGame"), updated.newSession().filter("name==brandnewgame")
+                .map(BoardGame::getName).collect(Collectors.toList()));
+    }
+}
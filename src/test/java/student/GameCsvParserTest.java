@@ -0,0 +1,218 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCsvParserTest {
+
+    private static final String HEADER = "rank,objectname,other,objectid,average,avgweight,"
+            + "minplayers,maxplayers,minplaytime,maxplaytime,yearpublished";
+
+    private static double parseDouble(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        return GameCsvParser.parseDouble(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static int parseInt(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        return GameCsvParser.parseInt(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static List<BoardGame> read(String csv, int bufferSize) throws IOException {
+        List<BoardGame> games = new ArrayList<>();
+        GameCsvParser.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                bufferSize, new LoadStats(), games::add);
+        return games;
+    }
+
+    @Test
+    void testParseDoubleMatchesJdk() {
+        String[] samples = {"0", "-0", "1", "1.", ".5", "6.60806", "1.8966", "0.00012",
+            "123456789012345", "1234567890123456789", "1e5", "2.5E-3", "-7.25e+2", "1e22",
+            "1e23", "1e-300", "NaN", "-Infinity", "00012.500", "3.14159265358979323846"};
+        for (String sample : samples) {
+            assertEquals(Double.parseDouble(sample), parseDouble(sample), sample);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextDouble() * Math.pow(10, random.nextInt(12) - 4);
+            String[] texts = {Double.toString(value), String.format(Locale.ROOT, "%.5f", value),
+                String.format(Locale.ROOT, "%.3e", value)};
+            for (String text : texts) {
+                assertEquals(Double.parseDouble(text), parseDouble(text), text);
+            }
+        }
+    }
+
+    @Test
+    void testParseBadNumbers() {
+        for (String bad : new String[] {"", "-", ".", "1e", "abc", "1.2.3"}) {
+            assertThrows(NumberFormatException.class, () -> parseDouble(bad), bad);
+        }
+        assertEquals(Integer.MIN_VALUE, parseInt("-2147483648"));
+        assertEquals(Integer.MAX_VALUE, parseInt("+2147483647"));
+        for (String bad : new String[] {"", "-", "2147483648", "1.0", " 1", "x"}) {
+            assertThrows(NumberFormatException.class, () -> parseInt(bad), bad);
+        }
+    }
+
+    @Test
+    void testReadsRowsAcrossBufferBoundaries() throws IOException {
+        String csv = HEADER + "\r\n"
+                + "12,Catan,x,13,7.1,2.3,3,4,60,120,1995\r\n"
+                + "\r\n"
+                + "5,Pandemic,,30549,7.6,2.4,2,4,45,45,2008\n"
+                + "bad,Broken,,1,1,1,1,1,1,1,1\n"
+                + "7,Too short,,2\n"
+                + "9,Ca\u00f1a Brava,,99,6.5,1.5,1,6,30,30,2019";
+        for (int bufferSize : new int[] {1, 7, 64, GameCsvParser.DEFAULT_BUFFER_SIZE}) {
+            List<BoardGame> games = read(csv, bufferSize);
+            assertEquals(3, games.size(), "buffer " + bufferSize);
+
+            BoardGame catan = games.get(0);
+            assertEquals("Catan", catan.getName());
+            assertEquals(13, catan.getId());
+            assertEquals(12, catan.getRank());
+            assertEquals(7.1, catan.getRating());
+            assertEquals(2.3, catan.getDifficulty());
+            assertEquals(120, catan.getMaxPlayTime());
+            assertEquals(1995, catan.getYearPublished());
+            assertEquals("Pandemic", games.get(1).getName());
+            assertEquals("Ca\u00f1a Brava", games.get(2).getName());
+        }
+    }
+
+    @Test
+    void testMissingColumnIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> read("objectname,objectid\nCatan,13\n", 64));
+        assertTrue(assertDoesNotThrow(() -> read("", 64)).isEmpty());
+    }
+
+    @Test
+    void testLoaderBuildsTableFromStream() {
+        GameTable table = GamesLoader.loadGameTable("/collection.csv");
+        assertEquals(GamesLoader.loadGamesFile("/collection.csv").size(), table.size());
+        assertTrue(table.size() > 0);
+        assertTrue(table.hasIndexes());
+    }
+
+    @Test
+    void testMappedChunksMatchStream(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("collection.csv");
+        try (InputStream in = GamesLoader.class.getResourceAsStream("/collection.csv")) {
+            Files.copy(in, file);
+        }
+        LoadStats streamedStats = new LoadStats();
+        GameTable streamed = GamesLoader.loadGameTable("/collection.csv", streamedStats);
+
+        for (int threads : new int[] {1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (int chunkSize : new int[] {1, 4096, 1 << 24}) {
+                    LoadStats stats = new LoadStats();
+                    GameTable mapped = GamesLoader.loadGameTable(file,
+                            new ParallelSettings(1, pool), stats, chunkSize);
+                    assertEquals(streamed.size(), mapped.size(), "chunk " + chunkSize);
+                    assertEquals(streamedStats.toString(), stats.toString());
+                    for (int row = 0; row < streamed.size(); row++) {
+                        assertEquals(streamed.getGame(row), mapped.getGame(row));
+                        assertEquals(streamed.getNumber(GameData.RATING, row),
+                                mapped.getNumber(GameData.RATING, row));
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        assertEquals(0, GamesLoader.loadGameTable(Files.createFile(dir.resolve("empty.csv")))
+                .size());
+    }
+
+    @Test
+    void testMappedChunksKeepQuotedLineBreaks(@TempDir Path dir) throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < 40; i++) {
+            csv.append(i + 1).append(",\"Game ").append(i).append(i % 2 == 0 ? "\n" : ",\r\n")
+                    .append("part two\",,").append(100 + i)
+                    .append(",7.0,2.0,2,4,30,30,2001\n");
+        }
+        Path file = dir.resolve("quoted.csv");
+        Files.writeString(file, csv);
+        List<BoardGame> streamed = read(csv.toString(), 64);
+        assertEquals(40, streamed.size());
+
+        for (int threads : new int[] {1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                // every size up to a couple of rows puts a boundary on every byte of a name
+                for (int chunkSize = 1; chunkSize < 100; chunkSize++) {
+                    LoadStats stats = new LoadStats();
+                    GameTable mapped = GamesLoader.loadGameTable(file,
+                            new ParallelSettings(1, pool), stats, chunkSize);
+                    assertEquals(0, stats.getSkipped(), "chunk " + chunkSize);
+                    assertEquals(streamed.size(), mapped.size(), "chunk " + chunkSize);
+                    for (int row = 0; row < streamed.size(); row++) {
+                        assertEquals(streamed.get(row).getName(), mapped.getGame(row).getName());
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testQuotedFieldsAndSkipCounts() throws IOException {
+        String csv = HEADER + "\n"
+                + "1,\"Catan, the \"\"Settlers\"\"\",,13,7.1,2.3,3,4,60,120,1995\n"
+                + "2,\"Two\nLines\",\"x,y\",14,\"7.5\",2.0,2,4,30,30,2001\r\n"
+                + "3,\"Never closed,,15,7.0,2.0,2,4,30,30,2001\n"
+                + "4,\"Text\" after,,16,7.0,2.0,2,4,30,30,2001\n"
+                + "5,Plain 12\" Game,,17,7.0,2.0,2,4,30,30,2001\n"
+                + "6,Short,,18\n"
+                + "x,Bad rank,,19,7.0,2.0,2,4,30,30,2001\n"
+                + "1,\"Catan, the \"\"Settlers\"\"\",,13,7.1,2.3,3,4,60,120,1995\n";
+        for (int bufferSize : new int[] {1, 16, GameCsvParser.DEFAULT_BUFFER_SIZE}) {
+            LoadStats stats = new LoadStats();
+            List<BoardGame> games = new ArrayList<>();
+            GameCsvParser.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                    bufferSize, stats, games::add);
+
+            assertEquals(List.of("Catan, the \"Settlers\"", "Two\nLines", "Plain 12\" Game",
+                    "Catan, the \"Settlers\""),
+                    games.stream().map(BoardGame::getName).collect(Collectors.toList()));
+            assertEquals(7.5, games.get(1).getRating());
+            assertEquals(1, stats.getSkipped(LoadStats.Reason.TOO_FEW_FIELDS));
+            assertEquals(1, stats.getSkipped(LoadStats.Reason.BAD_NUMBER));
+            assertEquals(1, stats.getSkipped(LoadStats.Reason.BAD_QUOTES), stats.toString());
+        }
+    }
+
+    @Test
+    void testLoaderCountsDuplicates() {
+        LoadStats stats = new LoadStats();
+        GameTable table = GamesLoader.loadGameTable("/collection.csv", stats);
+        assertEquals(table.size(), stats.getLoaded());
+        assertEquals(stats.getSkipped(), stats.getSkipped(LoadStats.Reason.DUPLICATE)
+                + stats.getSkipped(LoadStats.Reason.TOO_FEW_FIELDS)
+                + stats.getSkipped(LoadStats.Reason.BAD_NUMBER)
+                + stats.getSkipped(LoadStats.Reason.BAD_QUOTES));
+    }
+}
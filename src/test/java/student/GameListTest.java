@@ -0,0 +1,182 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameListTest {
+    private List<BoardGame> filtered;
+    private GameList list;
+
+    @BeforeEach
+    void setUp() {
+        filtered = List.of(
+                new BoardGame("azul", 1, 2, 4, 30, 45, 1.8, 60, 7.8, 2017),
+                new BoardGame("Brass", 2, 2, 4, 60, 120, 3.9, 3, 8.6, 2018),
+                new BoardGame("Catan", 3, 3, 4, 60, 90, 2.3, 70, 7.1, 1995),
+                new BoardGame("Agricola", 4, 1, 5, 30, 150, 3.6, 40, 7.9, 2007),
+                new BoardGame("catan", 5, 3, 4, 60, 90, 2.3, 80, 7.0, 2015));
+        list = new GameList();
+    }
+
+    @Test
+    void testAddAllKeepsCaseInsensitiveOrder() {
+        list.addToList("all", filtered.stream());
+        assertEquals(List.of("Agricola", "azul", "Brass", "Catan", "catan"), list.getGameNames());
+        list.addToList("ALL", filtered.stream());
+        assertEquals(5, list.count());
+    }
+
+    @Test
+    void testAddByNameOrPosition() {
+        list.addToList("brass", filtered.stream());
+        assertEquals(List.of("Brass"), list.getGameNames());
+        list.addToList("1", filtered.stream());
+        list.addToList("4-10", filtered.stream());
+        assertEquals(List.of("Agricola", "azul", "Brass", "catan"), list.getGameNames());
+        list.addToList("catan", filtered.stream());
+        assertEquals(5, list.count());
+    }
+
+    @Test
+    void testInvalidAdds() {
+        assertThrows(IllegalArgumentException.class, () -> list.addToList("0", filtered.stream()));
+        assertThrows(IllegalArgumentException.class, () -> list.addToList("6", filtered.stream()));
+        assertThrows(IllegalArgumentException.class,
+                () -> list.addToList("3-2", filtered.stream()));
+        assertThrows(IllegalArgumentException.class,
+                () -> list.addToList("1-2-3", filtered.stream()));
+        assertThrows(IllegalArgumentException.class,
+                () -> list.addToList("Gloomhaven", filtered.stream()));
+        assertEquals(0, list.count());
+    }
+
+    @Test
+    void testRemoveByNamePositionAndRange() {
+        list.addToList("all", filtered.stream());
+        list.removeFromList("CATAN");
+        assertEquals(List.of("Agricola", "azul", "Brass"), list.getGameNames());
+        list.removeFromList("2");
+        assertEquals(List.of("Agricola", "Brass"), list.getGameNames());
+        list.removeFromList("1-5");
+        assertEquals(0, list.count());
+
+        list.addToList("all", filtered.stream());
+        assertThrows(IllegalArgumentException.class, () -> list.removeFromList("6"));
+        assertThrows(IllegalArgumentException.class, () -> list.removeFromList("Gloomhaven"));
+        list.removeFromList("all");
+        assertEquals(0, list.count());
+    }
+
+    @Test
+    void testSaveGame(@TempDir Path dir) throws IOException {
+        list.addToList("all", filtered.stream());
+        Path file = dir.resolve("list.txt");
+        Files.writeString(file, "old contents that are longer than the list\n".repeat(10));
+        list.saveGame(file.toString());
+        assertEquals(list.getGameNames(), Files.readAllLines(file));
+    }
+
+    @Test
+    void testSaveGameGzipLeavesNoTempFile(@TempDir Path dir) throws IOException {
+        list.addToList("all", filtered.stream());
+        Path file = dir.resolve("list.txt.gz");
+        list.saveGame(file);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            assertEquals(list.getGameNames(), in.lines().collect(Collectors.toList()));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(file), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testSaveGameAsyncTakesNamesWhenCalled(@TempDir Path dir) throws Exception {
+        list.addToList("all", filtered.stream());
+        List<String> names = list.getGameNames();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Path file = dir.resolve("list.txt");
+            CompletableFuture<Path> saved = list.saveGameAsync(file.toString(), executor);
+            list.clear();
+            assertFalse(saved.isDone());
+            release.countDown();
+            assertEquals(file, saved.get(10, TimeUnit.SECONDS));
+            assertEquals(names, Files.readAllLines(file));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testSaveGameAsyncFailureKeepsOldFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("list.txt");
+        Files.writeString(file, "old\n");
+        list.addToList("all", filtered.stream());
+        CompletableFuture<Path> missing =
+                list.saveGameAsync(dir.resolve("no_such_dir").resolve("list.txt").toString());
+        ExecutionException error =
+                assertThrows(ExecutionException.class, () -> missing.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, error.getCause());
+
+        // a directory in the way of the move fails it after the names are written
+        Path blocked = dir.resolve("blocked");
+        Files.createDirectory(blocked);
+        Files.writeString(blocked.resolve("inside"), "x");
+        CompletableFuture<Path> saved = list.saveGameAsync(blocked.toString());
+        assertThrows(ExecutionException.class, () -> saved.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("old"), Files.readAllLines(file));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testAddFromRandomAccessList() {
+        List<Integer> read = new java.util.ArrayList<>();
+        List<BoardGame> view = new java.util.AbstractList<>() {
+            @Override
+            public BoardGame get(int index) {
+                read.add(index);
+                return filtered.get(index);
+            }
+
+            @Override
+            public int size() {
+                return filtered.size();
+            }
+        };
+        list.addToList("2-3", view);
+        assertEquals(List.of("Brass", "Catan"), list.getGameNames());
+        assertEquals(List.of(1, 2), read.subList(read.size() - 2, read.size()));
+        list.addToList("Agricola", view);
+        assertEquals(3, list.count());
+    }
+}
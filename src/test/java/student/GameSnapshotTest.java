@@ -0,0 +1,126 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSnapshotTest {
+
+    @Test
+    void testRoundTripKeepsRowsAndOrders(@TempDir Path dir) throws IOException {
+        GameTable table = GamesLoader.loadGameTable("/collection.csv");
+        Path file = dir.resolve("games" + GameSnapshot.EXTENSION);
+        GameSnapshot.write(table, file);
+        GameTable read = GameSnapshot.read(file);
+
+        assertEquals(table.size(), read.size());
+        assertEquals(table.nameCount(), read.nameCount());
+        assertFalse(read.hasIndexes());
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(table.getGame(row), read.getGame(row));
+            assertEquals(table.getName(row), read.getName(row));
+            for (GameData col : GameData.values()) {
+                if (col != GameData.NAME) {
+                    assertEquals(table.getNumber(col, row), read.getNumber(col, row));
+                }
+            }
+        }
+        for (GameData col : GameData.values()) {
+            if (GameTable.isSortable(col)) {
+                assertArrayEquals(table.getSortOrder(col).rows(), read.getSortOrder(col).rows());
+            }
+        }
+        assertArrayEquals(table.getNameOrder(), read.getNameOrder());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(file), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testReadThroughSmallWindows(@TempDir Path dir) throws IOException {
+        GameTable table = GamesLoader.loadGameTable("/collection.csv");
+        Path file = dir.resolve("games" + GameSnapshot.EXTENSION);
+        GameSnapshot.write(table, file);
+        for (int window : new int[] {8, 13, 4096}) {
+            GameTable read = GameSnapshot.read(file, false, window);
+            assertEquals(table.size(), read.size());
+            for (int row = 0; row < table.size(); row++) {
+                assertEquals(table.getGame(row), read.getGame(row));
+            }
+            assertArrayEquals(table.getSortOrder(GameData.RATING).rows(),
+                    read.getSortOrder(GameData.RATING).rows());
+            assertArrayEquals(table.getNameOrder(), read.getNameOrder());
+        }
+    }
+
+    @Test
+    void testIndexesFromStoredNameOrder(@TempDir Path dir) throws IOException {
+        GameTable table = GamesLoader.loadGameTable("/collection.csv").buildIndexes();
+        Path file = dir.resolve("games" + GameSnapshot.EXTENSION);
+        GameSnapshot.write(table, file);
+        GameTable read = GameSnapshot.read(file).buildIndexes();
+        assertArrayEquals(table.getNameOrder(), read.getNameOrder());
+        String name = table.getLowerName(3);
+        assertArrayEquals(table.getNameIndex().equalTo(name),
+                read.getNameIndex().equalTo(name));
+    }
+
+    @Test
+    void testFailedWriteLeavesNoTempFile(@TempDir Path dir) throws IOException {
+        Path target = Files.createDirectory(dir.resolve("games" + GameSnapshot.EXTENSION));
+        Files.createFile(target.resolve("keep"));
+        assertThrows(IOException.class,
+                () -> GameSnapshot.write(GamesLoader.loadGameTable("/collection.csv"), target));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(target), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testCompactRead(@TempDir Path dir) throws IOException {
+        GameTable table = GamesLoader.loadGameTable("/collection.csv");
+        Path file = dir.resolve("games" + GameSnapshot.EXTENSION);
+        GameSnapshot.write(table, file);
+        GameTable read = GameSnapshot.read(file, true);
+
+        assertTrue(read.isCompact());
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(table.getGame(row), read.getGame(row));
+        }
+        GameSnapshot.write(read, file);
+        assertEquals(table.getName(7), GameSnapshot.read(file).getName(7));
+    }
+
+    @Test
+    void testEmptyTable(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("empty" + GameSnapshot.EXTENSION);
+        GameSnapshot.write(new GameTable.Builder().build(), file);
+        assertEquals(0, GameSnapshot.read(file).size());
+    }
+
+    @Test
+    void testCorruptFilesAreRejected(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("games" + GameSnapshot.EXTENSION);
+        GameSnapshot.write(GamesLoader.loadGameTable("/collection.csv"), file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        IOException error = assertThrows(IOException.class, () -> GameSnapshot.read(file));
+        assertTrue(error.getMessage().contains("checksum"));
+
+        bytes[0] = 'X';
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> GameSnapshot.read(file));
+
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> GameSnapshot.read(file));
+    }
+}
@@ -0,0 +1,149 @@
+package student;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameTableTest {
+    private GameTable table;
+
+    @BeforeEach
+    void setUp() {
+        List<BoardGame> games = new ArrayList<>();
+        games.add(new BoardGame("Catan", 1, 3, 10, 45, 60, 2.5, 50, 8.2, 1995));
+        games.add(new BoardGame("Pandemic", 2, 2, 7, 60, 120, 2.8, 30, 8.5, 2008));
+        games.add(new BoardGame("Catan", 5, 3, 4, 60, 90, 2.3, 70, 7.1, 2015));
+        table = GameTable.fromGames(games);
+    }
+
+    @Test
+    void testRowsKeepInsertionOrder() {
+        assertEquals(3, table.size());
+        assertEquals("Catan", table.getName(0));
+        assertEquals("Pandemic", table.getName(1));
+        assertEquals(5, table.getId(2));
+        assertEquals(2, table.getGame(1).getId());
+    }
+
+    @Test
+    void testColumnsMatchGames() {
+        assertArrayEquals(new int[] {3, 2, 3}, table.intColumn(GameData.MIN_PLAYERS));
+        assertArrayEquals(new int[] {1995, 2008, 2015}, table.intColumn(GameData.YEAR));
+        assertArrayEquals(new double[] {8.2, 8.5, 7.1}, table.doubleColumn(GameData.RATING));
+        assertEquals(120.0, table.getNumber(GameData.MAX_TIME, 1));
+    }
+
+    @Test
+    void testNamesShareDictionaryEntry() {
+        assertSame(table.getName(0), table.getName(2));
+        assertSame(table.getLowerName(0), table.getLowerName(2));
+        assertEquals("pandemic", table.getLowerName(1));
+    }
+
+    @Test
+    void testWrongColumnType() {
+        assertThrows(IllegalArgumentException.class, () -> table.intColumn(GameData.RATING));
+        assertThrows(IllegalArgumentException.class, () -> table.doubleColumn(GameData.NAME));
+    }
+
+    @Test
+    void testIndexRanges() {
+        assertFalse(table.hasIndexes());
+        assertNull(table.getIndex(GameData.RATING));
+        table.buildIndexes();
+
+        ColumnIndex rating = table.getIndex(GameData.RATING);
+        int[] range = rating.range(Operations.GREATER_THAN_EQUALS, 8.2);
+        assertArrayEquals(new int[] {0, 1}, rating.rows(range[0], range[1]));
+
+        ColumnIndex players = table.getIndex(GameData.MIN_PLAYERS);
+        range = players.range(Operations.EQUALS, 3);
+        assertArrayEquals(new int[] {0, 2}, players.rows(range[0], range[1]));
+        range = players.range(Operations.LESS_THAN, 3);
+        assertArrayEquals(new int[] {1}, players.rows(range[0], range[1]));
+        range = players.range(Operations.GREATER_THAN, 3);
+        assertEquals(0, range[1] - range[0]);
+
+        assertNull(table.getIndex(GameData.ID));
+        assertNull(table.getIndex(GameData.NAME));
+    }
+
+    @Test
+    void testSortOrders() {
+        SortOrder byName = table.getSortOrder(GameData.NAME);
+        assertEquals(0, byName.rowAt(0)); // Catan ties broken by row id
+        assertEquals(2, byName.rowAt(1));
+        assertEquals(1, byName.rowAt(2));
+        assertEquals(2, byName.positionOf(1));
+
+        SortOrder byRating = table.getSortOrder(GameData.RATING);
+        assertEquals(2, byRating.rowAt(0));
+        assertEquals(1, byRating.rowAt(2));
+
+        assertThrows(IllegalArgumentException.class, () -> table.getSortOrder(GameData.ID));
+    }
+
+    @Test
+    void testNameOrderIgnoresCase() {
+        GameTable mixed = GameTable.fromGames(List.of(
+                new BoardGame("azul", 1, 2, 4, 30, 45, 1.8, 60, 7.8, 2017),
+                new BoardGame("Brass", 2, 2, 4, 60, 120, 3.9, 3, 8.6, 2018),
+                new BoardGame("Agricola", 3, 1, 5, 30, 150, 3.6, 40, 7.9, 2007)));
+        SortOrder byName = mixed.getSortOrder(GameData.NAME);
+        assertArrayEquals(new int[] {2, 0, 1},
+                new int[] {byName.rowAt(0), byName.rowAt(1), byName.rowAt(2)});
+    }
+
+    @Test
+    void testAddAllIfAbsentKeepsFirstRows() {
+        BoardGame catan = new BoardGame("Catan", 1, 3, 4, 60, 90, 2.3, 70, 7.1, 1995);
+        BoardGame pandemic = new BoardGame("Pandemic", 2, 2, 4, 45, 60, 2.4, 80, 7.6, 2008);
+        BoardGame azul = new BoardGame("Azul", 3, 2, 4, 30, 45, 1.8, 60, 7.8, 2017);
+        for (boolean compact : new boolean[] {false, true}) {
+            GameTable.Builder builder = new GameTable.Builder(1);
+            if (compact) {
+                builder.compact();
+            }
+            builder.addIfAbsent(pandemic);
+            GameTable.Builder rows = new GameTable.Builder(1);
+            rows.add(catan).add(pandemic).add(catan).add(azul);
+            assertEquals(2, builder.addAllIfAbsent(rows));
+            assertEquals(4, rows.size());
+            GameTable built = builder.build();
+            assertEquals(3, built.size());
+            assertEquals(List.of(pandemic, catan, azul),
+                    List.of(built.getGame(0), built.getGame(1), built.getGame(2)));
+            assertEquals(7.8, built.getNumber(GameData.RATING, 2));
+        }
+    }
+
+    @Test
+    void testCompactTableMatchesFullTable() {
+        GameTable full = GamesLoader.loadGameTable("/collection.csv");
+        GameTable compact = full.compact();
+        assertTrue(compact.isCompact());
+        assertFalse(full.isCompact());
+        assertTrue(compact.hasIndexes());
+        assertEquals(full.size(), compact.size());
+        for (int row = 0; row < full.size(); row++) {
+            assertEquals(full.getGame(row), compact.getGame(row));
+            assertEquals(full.getName(row), compact.getName(row));
+            assertEquals(full.getGame(row).getRating(), compact.getGame(row).getRating());
+        }
+
+        GameTable built = new GameTable.Builder().compact()
+                .add(new BoardGame("Caf\u00e9", 1, 2, 4, 30, 45, 1.8, 60, 7.8, 2017))
+                .add(new BoardGame("Catan", 2, 3, 4, 60, 90, 2.3, 70, 7.1, 1995))
+                .add(new BoardGame("Caf\u00e9", 3, 2, 2, 20, 20, 1.1, 90, 6.0, 2020))
+                .build();
+        assertTrue(built.isCompact());
+        assertEquals(2, built.nameCount());
+        assertEquals("caf\u00e9", built.getLowerName(2));
+        assertEquals(List.of(1, 3), new GameCatalog(built).newSession().filter("name~=caf\u00e9")
+                .map(BoardGame::getId).sorted().collect(Collectors.toList()));
+    }
+}
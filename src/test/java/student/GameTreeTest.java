@@ -0,0 +1,59 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameTreeTest {
+
+    private static BoardGame game(String name, int id) {
+        return new BoardGame(name, id, 1, 4, 30, 60, 2.0, id, 7.0, 2000);
+    }
+
+    @Test
+    void testMatchesTreeSetUnderRandomEdits() {
+        Random random = new Random(11);
+        GameTree tree = new GameTree(GameList.ORDER);
+        TreeSet<BoardGame> expected = new TreeSet<>(GameList.ORDER);
+        for (int step = 0; step < 5000; step++) {
+            if (random.nextInt(4) > 0 || expected.isEmpty()) {
+                BoardGame game = game("Game " + random.nextInt(500), random.nextInt(50));
+                assertEquals(expected.add(game), tree.add(game));
+            } else {
+                int from = random.nextInt(expected.size());
+                int to = Math.min(expected.size(), from + random.nextInt(20));
+                List<BoardGame> ordered = new ArrayList<>(expected);
+                expected.removeAll(ordered.subList(from, to));
+                tree.removeRange(from, to);
+            }
+            assertEquals(expected.size(), tree.size());
+        }
+        List<BoardGame> ordered = new ArrayList<>(expected);
+        List<BoardGame> walked = new ArrayList<>();
+        tree.forEach(walked::add);
+        assertEquals(ordered, walked);
+        for (int i = 0; i < ordered.size(); i++) {
+            assertSame(ordered.get(i), tree.get(i));
+            assertEquals(i, tree.lowerBound(ordered.get(i)));
+        }
+    }
+
+    @Test
+    void testBounds() {
+        GameTree tree = new GameTree(GameList.ORDER);
+        tree.add(game("b", 1));
+        tree.add(game("a", 2));
+        assertFalse(tree.add(game("a", 2)));
+        assertEquals(0, tree.lowerBound(game("A", Integer.MIN_VALUE)));
+        assertEquals(2, tree.lowerBound(game("c", 0)));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.removeRange(1, 3));
+        tree.removeRange(0, 2);
+        assertEquals(0, tree.size());
+        assertFalse(tree.iterator().hasNext());
+    }
+}
@@ -2,8 +2,15 @@ package student;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -21,6 +28,7 @@ class PlannerTest {
         games.add(new BoardGame("Terraforming Mars", 3, 4, 5, 120, 180, 3.2, 10, 8.9, 2016));
         games.add(new BoardGame("Chess", 4, 2, 2, 10, 30, 3.8, 1, 9.0, 1500));
 
+        testGames = games;
         planner = new Planner(games);
     }
 
@@ -137,4 +145,272 @@ class PlannerTest {
         assertEquals(planner.getFilteredGames().size(), 4);
     }
 
+    @Test
+    void testFilterCacheCountsHitsAndMisses() {
+        planner.filter("minPlayers>2");
+        planner.reset();
+        planner.filter(" minPlayers > 2 ");
+        planner.reset();
+        planner.filter("maxPlayers<6");
+
+        assertEquals(1, planner.getFilterCache().getHits());
+        assertEquals(2, planner.getFilterCache().getMisses());
+        // the spaced text is held as typed as well as normalized
+        assertEquals(3, planner.getFilterCache().size());
+    }
+
+    @Test
+    void testFilterCacheFindsRawTextWithoutNormalizing() {
+        FilterCache cache = new FilterCache();
+        CompiledFilter first = cache.get(" minPlayers > 2 ");
+        assertSame(first, cache.get(" minPlayers > 2 "));
+        assertSame(first, cache.get("minPlayers>2"));
+        assertSame(first, cache.get("minPlayers >2"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    void testAppliedFilterStaysMerged() {
+        for (int i = 0; i < 100; i++) {
+            planner.filter("minPlayers>1, year>1900");
+        }
+        planner.filter("year>2000");
+        planner.filter("year>1990");
+        List<FilterCondition> conditions = planner.getAppliedFilter().getConditions();
+        assertEquals(2, conditions.size());
+        assertEquals(List.of(FilterCondition.parse("minPlayers>1"),
+                FilterCondition.parse("year>2000")), conditions);
+        assertEquals(2, planner.getFilteredGames().size());
+        planner.reset();
+        assertTrue(planner.getAppliedFilter().isEmpty());
+    }
+
+    @Test
+    void testFilterCacheEvictsLeastRecentlyUsed() {
+        FilterCache cache = new FilterCache(2);
+        cache.get("minPlayers>2");
+        cache.get("maxPlayers<6");
+        cache.get("minPlayers>2");
+        cache.get("year>2000"); // evicts maxPlayers<6
+        cache.get("maxPlayers<6");
+
+        assertEquals(1, cache.getHits());
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testInvalidConditionsAreIgnored() {
+        Stream<BoardGame> result = planner.filter("bogus>2,minPlayers>abc,id==1,name>c,maxPlayers<6");
+        assertEquals(2, result.count());
+    }
+
+    @Test
+    void testShortNameSearchesMatchScan() {
+        Set<BoardGame> collection = GamesLoader.loadGamesFile("/collection.csv");
+        GameTable plain = GameTable.fromGames(collection);
+        GameTable indexed = GameTable.fromGames(collection).buildIndexes();
+        for (String value : new String[] {"a", "z", "7", ":", "ca", "an", "e ", "zq", "the",
+                "of the", "ark"}) {
+            List<String> expected = new Planner(plain).filter("name~=" + value)
+                    .map(BoardGame::getName).collect(Collectors.toList());
+            List<String> actual = new Planner(indexed).filter("name~=" + value)
+                    .map(BoardGame::getName).collect(Collectors.toList());
+            assertEquals(expected, actual, value);
+        }
+    }
+
+    @Test
+    void testIndexedFilterMatchesScan() {
+        GameTable indexed = GameTable.fromGames(testGames).buildIndexes();
+        for (String filter : new String[] {"rating>=8.5", "year<2000", "minPlayers==2",
+                "maxPlayers<=5,difficulty>3", "rank>1,rating<9,name~=a", "minTime!=60", "name~=an", "name~=tan",
+                "name~=ming ma", "name~=xyz", "name==chess", "name==CHESS,year<2000"}) {
+            Set<String> expected = new Planner(GameTable.fromGames(testGames)).filter(filter)
+                    .map(BoardGame::getName).collect(Collectors.toSet());
+            Set<String> actual = new Planner(indexed).filter(filter)
+                    .map(BoardGame::getName).collect(Collectors.toSet());
+            assertEquals(expected, actual, filter);
+        }
+    }
+
+    @Test
+    void testFilterPageMatchesFullSort() {
+        List<String> full = planner.filter("", GameData.RATING, false).map(BoardGame::getName)
+                .toList();
+        List<String> page = planner.filter("", GameData.RATING, false, 2, 1)
+                .map(BoardGame::getName).toList();
+        assertEquals(full.subList(1, 3), page);
+
+        GameTable indexed = GameTable.fromGames(testGames).buildIndexes();
+        Planner indexedPlanner = new Planner(indexed);
+        assertEquals(full.subList(0, 1),
+                indexedPlanner.filter("", GameData.RATING, false, 1, 0).map(BoardGame::getName)
+                        .toList());
+        assertEquals(0, indexedPlanner.filter("", GameData.NAME, true, 5, 10).count());
+    }
+
+    @Test
+    void testFilterPageKeepsWholeResult() {
+        List<BoardGame> page = planner.filter("minPlayers>=2", GameData.NAME, true, 1, 0)
+                .toList();
+        assertEquals(1, page.size());
+        assertEquals("Catan", page.get(0).getName());
+        assertEquals(4, planner.getFilteredGames().size());
+        assertThrows(IllegalArgumentException.class,
+                () -> planner.filter("", GameData.NAME, true, -1, 0));
+    }
+
+    @Test
+    void testRefiningSortedResultKeepsOrder() {
+        planner.filter("", GameData.RATING, false);
+        List<String> refined = planner.filter("minPlayers<=3", GameData.RATING, false)
+                .map(BoardGame::getName).toList();
+        assertEquals(List.of("Chess", "Pandemic", "Catan"), refined);
+        List<String> reversed = planner.filter("", GameData.RATING, true)
+                .map(BoardGame::getName).toList();
+        assertEquals(List.of("Catan", "Pandemic", "Chess"), reversed);
+    }
+
+    @Test
+    void testFilteredGamesIsReadOnlyView() {
+        planner.filter("year>2000");
+        Set<BoardGame> view = planner.getFilteredGames();
+        assertEquals(2, view.size());
+        assertThrows(UnsupportedOperationException.class, () -> view.clear());
+        planner.reset();
+        assertEquals(4, planner.getFilteredGames().size());
+        assertEquals(2, view.size()); // a view of the old state is unaffected
+    }
+
+    @Test
+    void testPlannerFromSetIsIndexed() {
+        assertTrue(planner.getCatalog().getTable().hasIndexes());
+        assertTrue(GameCatalog.of(testGames).getTable().hasIndexes());
+    }
+
+    @Test
+    void testSessionsShareCatalog() throws Exception {
+        GameCatalog catalog = GameCatalog.of(testGames);
+        Planner first = catalog.newSession();
+        Planner second = catalog.newSession();
+        first.filter("minPlayers>2");
+        assertEquals(2, first.getFilteredGames().size());
+        assertEquals(4, second.getFilteredGames().size());
+        assertSame(first.getFilterCache(), second.getFilterCache());
+
+        List<Thread> threads = new ArrayList<>();
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    Planner session = catalog.newSession();
+                    List<String> names = session.filter("maxPlayers<=7", GameData.YEAR, false)
+                            .map(BoardGame::getName).toList();
+                    if (!names.equals(List.of("Terraforming Mars", "Pandemic", "Chess"))) {
+                        failures.add(names.toString());
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        Set<BoardGame> many = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            many.add(new BoardGame("Game " + i, i, 1 + i % 4, 2 + i % 8, 10 + i % 90,
+                    20 + i % 180, (i % 50) / 10.0, i, (i * 7 % 100) / 10.0, 1950 + i % 75));
+        }
+        GameTable table = GameTable.fromGames(many);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            GameCatalog parallel = new GameCatalog(table, new FilterCache(),
+                    new ParallelSettings(1, pool));
+            GameCatalog sequential = new GameCatalog(table, new FilterCache(),
+                    ParallelSettings.SEQUENTIAL);
+            for (String filter : new String[] {"", "minPlayers>=2,rating>5", "name~=9"}) {
+                for (GameData sortOn : new GameData[] {GameData.RATING, GameData.NAME}) {
+                    for (boolean ascending : new boolean[] {true, false}) {
+                        assertEquals(
+                                sequential.newSession().filter(filter, sortOn, ascending).toList(),
+                                parallel.newSession().filter(filter, sortOn, ascending).toList(),
+                                filter + " " + sortOn + " " + ascending);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelSortMatchesArraysSort() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelSettings settings = new ParallelSettings(1, pool);
+            Random random = new Random(42);
+            for (int size : new int[] {0, 1, 100, 100_000}) {
+                int[] values = random.ints(size, 0, size / 2 + 1).toArray();
+                int[] expected = values.clone();
+                Arrays.sort(expected);
+                settings.sort(values);
+                assertArrayEquals(expected, values, "size " + size);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    @Test
+    void testResultViewKeepsStateOrder() {
+        GameTable table = GameTable.fromGames(GamesLoader.loadGamesFile("/collection.csv"));
+        RowBitmap even = new RowBitmap(table.size());
+        for (int row = 0; row < table.size(); row += 2) {
+            even.set(row);
+        }
+        FilterState state = FilterState.all(table, ParallelSettings.SEQUENTIAL).narrow(even);
+        int[] byRating = state.page(GameData.RATING, false, 0, state.count());
+        ResultView view = state.view();
+        List<BoardGame> byName = new ArrayList<>(view);
+        for (int i = 0; i < view.size(); i++) {
+            assertEquals(byName.get(i), view.get(i));
+        }
+        assertEquals(byName.subList(1, 4), view.subList(1, 4));
+        // reading the view left the rating order cached
+        assertSame(byRating, state.page(GameData.RATING, false, 0, state.count()));
+    }
+
+    @Test
+    void testCurrentResultsMatchFilter() {
+        Set<BoardGame> collection = GamesLoader.loadGamesFile("/collection.csv");
+        Planner planner = new Planner(collection);
+        planner.filter("minPlayers>2");
+        List<BoardGame> expected = planner.filter("").collect(Collectors.toList());
+        ResultView view = planner.currentResults();
+        assertEquals(expected.size(), view.size());
+        assertEquals(expected.subList(2, 5), view.subList(2, 5));
+        assertEquals(expected, view);
+        assertEquals(expected.get(3), view.get(3));
+
+        BoardGame named = expected.get(1);
+        assertEquals(List.of(named), view.withName(named.getName().toUpperCase()));
+        assertTrue(view.withName("no such game").isEmpty());
+        Planner indexed = new GameCatalog(GameTable.fromGames(collection).buildIndexes())
+                .newSession();
+        indexed.filter("minPlayers>2");
+        assertEquals(List.of(named), indexed.currentResults().withName(named.getName()));
+
+        planner.filter("minPlayers>10");
+        assertEquals(expected.size(), view.size()); // a view keeps its result
+        assertEquals(0, planner.currentResults().size());
+    }
 }
@@ -0,0 +1,162 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultRendererTest {
+    private static final String NL = System.lineSeparator();
+
+    private final List<BoardGame> games = List.of(
+            new BoardGame("Azul", 1, 2, 4, 30, 45, 1.765, 60, 7.8, 2017),
+            new BoardGame("Brass, \"Birmingham\"", 2, 2, 4, 60, 120, 3.9, 3, 2.675, 2018));
+
+    private String render(ResultRenderer.Format format, GameData sortOn, Stream<BoardGame> games,
+            int first) throws IOException {
+        StringWriter out = new StringWriter();
+        new ResultRenderer(out, format, sortOn).render(games, first);
+        return out.toString();
+    }
+
+    @Test
+    void testTextMatchesToStringWithInfo() throws IOException {
+        for (GameData column : GameData.values()) {
+            String expected = "";
+            int number = 5;
+            for (BoardGame game : games) {
+                expected += number++ + ": " + game.toStringWithInfo(column) + NL;
+            }
+            assertEquals(expected, render(ResultRenderer.Format.TEXT, column, games.stream(), 5),
+                    column.name());
+        }
+    }
+
+    @Test
+    void testTextWritesLargeResultsInChunks() throws IOException {
+        List<BoardGame> many = new ArrayList<>();
+        CatalogGenerator generator = new CatalogGenerator(3000, CatalogGenerator.DEFAULT_SEED);
+        while (generator.hasNext()) {
+            many.add(generator.next());
+        }
+        String text = render(ResultRenderer.Format.TEXT, GameData.RATING, many.stream(), 1);
+        String[] lines = text.split(NL);
+        assertEquals(3000, lines.length);
+        assertEquals("3000: " + many.get(2999).toStringWithInfo(GameData.RATING), lines[2999]);
+        assertTrue(text.length() > ResultRenderer.CHUNK);
+    }
+
+    @Test
+    void testTsv() throws IOException {
+        String tsv = render(ResultRenderer.Format.TSV, GameData.RATING, games.stream(), 1);
+        String header = Stream.of(GameData.values()).map(GameData::getColumnName)
+                .collect(Collectors.joining("\t"));
+        assertEquals(header + NL
+                + "Azul\t1\t7.8\t1.765\t60\t2\t4\t30\t45\t2017" + NL
+                + "Brass, \"Birmingham\"\t2\t2.675\t3.9\t3\t2\t4\t60\t120\t2018" + NL, tsv);
+    }
+
+    @Test
+    void testJson() throws IOException {
+        String json = render(ResultRenderer.Format.JSON, GameData.NAME, games.stream(), 1);
+        assertEquals("[" + NL
+                + "{\"objectname\":\"Azul\",\"objectid\":1,\"average\":7.8,\"avgweight\":1.765,"
+                + "\"rank\":60,\"minplayers\":2,\"maxplayers\":4,\"minplaytime\":30,"
+                + "\"maxplaytime\":45,\"yearpublished\":2017}," + NL
+                + "{\"objectname\":\"Brass, \\\"Birmingham\\\"\",\"objectid\":2,\"average\":2.675,"
+                + "\"avgweight\":3.9,\"rank\":3,\"minplayers\":2,\"maxplayers\":4,"
+                + "\"minplaytime\":60,\"maxplaytime\":120,\"yearpublished\":2018}" + NL
+                + "]" + NL, json);
+        assertEquals("[]" + NL,
+                render(ResultRenderer.Format.JSON, GameData.NAME, Stream.empty(), 1));
+    }
+
+    @Test
+    void testTextRoundsLikeToStringWithInfo() throws IOException {
+        List<BoardGame> edges = new ArrayList<>();
+        for (double value : new double[] {0, -0.0, -0.001, -1.005, 1, 2.675, 1.005, 0.125,
+                7.8949999, 9.999, 123.456, Double.NaN, Double.POSITIVE_INFINITY}) {
+            edges.add(new BoardGame("Game", 1, 2, 4, 30, 45, value, 60, value, 2017));
+        }
+        for (GameData column : new GameData[] {GameData.RATING, GameData.DIFFICULTY}) {
+            String expected = "";
+            for (int i = 0; i < edges.size(); i++) {
+                expected += (i + 1) + ": " + edges.get(i).toStringWithInfo(column) + NL;
+            }
+            assertEquals(expected, render(ResultRenderer.Format.TEXT, column, edges.stream(), 1));
+        }
+    }
+
+    @Test
+    void testTextFollowsFormatLocale() throws IOException {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            for (Locale other : new Locale[] {Locale.GERMANY, Locale.forLanguageTag("ar-EG"),
+                    Locale.US}) {
+                Locale.setDefault(Locale.Category.FORMAT, other);
+                for (BoardGame game : games) {
+                    assertEquals(String.format("%s (%.2f)", game.getName(), game.getRating()),
+                            game.toStringWithInfo(GameData.RATING), other.toString());
+                    assertEquals(String.format("%s (%d)", game.getName(), game.getRank()),
+                            game.toStringWithInfo(GameData.RANK), other.toString());
+                }
+                String expected = "1: " + games.get(0).toStringWithInfo(GameData.DIFFICULTY) + NL
+                        + "2: " + games.get(1).toStringWithInfo(GameData.DIFFICULTY) + NL;
+                assertEquals(expected, render(ResultRenderer.Format.TEXT, GameData.DIFFICULTY,
+                        games.stream(), 1), other.toString());
+            }
+            Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+            assertEquals("Azul (7,80)", games.get(0).toStringWithInfo(GameData.RATING));
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+        }
+    }
+
+    @Test
+    void testJsonWritesNullForNonFiniteNumbers() throws IOException {
+        BoardGame game = new BoardGame("Odd", 3, 1, 2, 10, 20, Double.POSITIVE_INFINITY, 5,
+                Double.NaN, 2000);
+        String json = render(ResultRenderer.Format.JSON, GameData.NAME, Stream.of(game), 1);
+        assertTrue(json.contains("\"average\":null,\"avgweight\":null,"), json);
+    }
+
+    @Test
+    void testOptionsParse() {
+        ResultRenderer.Options options = ResultRenderer.Options.parse(
+                "name ~= cat --page 3 sort:rating desc --limit=20 --format JSON");
+        assertEquals("name ~= cat sort:rating desc", options.text());
+        assertEquals(20, options.limit());
+        assertEquals(40, options.offset());
+        assertEquals(ResultRenderer.Format.JSON, options.format());
+
+        options = ResultRenderer.Options.parse("");
+        assertEquals("", options.text());
+        assertEquals(Integer.MAX_VALUE, options.limit());
+        assertEquals(0, options.offset());
+        assertEquals(ResultRenderer.Format.TEXT, options.format());
+
+        options = ResultRenderer.Options.parse("--page 2");
+        assertEquals(ResultRenderer.Options.DEFAULT_PAGE_SIZE, options.limit());
+        assertEquals(ResultRenderer.Options.DEFAULT_PAGE_SIZE, options.offset());
+    }
+
+    @Test
+    void testOptionsParseRejectsBadValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ResultRenderer.Options.parse("--page 0"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ResultRenderer.Options.parse("--limit ten"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ResultRenderer.Options.parse("--format xml"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ResultRenderer.Options.parse("--limit"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ResultRenderer.Options.parse("--sort rating"));
+    }
+}
@@ -0,0 +1,45 @@
+package student;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowBitmapTest {
+
+    @Test
+    void testAllSetsOnlyCoveredRows() {
+        RowBitmap bitmap = RowBitmap.all(130);
+        assertEquals(130, bitmap.cardinality());
+        assertTrue(bitmap.get(129));
+        assertEquals(-1, bitmap.nextSetBit(130));
+        assertEquals(0, RowBitmap.all(0).cardinality());
+    }
+
+    @Test
+    void testAndAndIteration() {
+        RowBitmap left = RowBitmap.of(200, new int[] {1, 63, 64, 150, 199});
+        RowBitmap right = RowBitmap.of(200, new int[] {63, 150, 151});
+        left.and(right);
+
+        assertEquals(2, left.cardinality());
+        assertArrayEquals(new int[] {63, 150}, left.toArray());
+        assertEquals(63, left.nextSetBit(0));
+        assertEquals(150, left.nextSetBit(64));
+
+        List<Integer> seen = new ArrayList<>();
+        left.forEach(seen::add);
+        assertEquals(List.of(63, 150), seen);
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        RowBitmap original = RowBitmap.of(10, new int[] {2, 4});
+        RowBitmap copy = original.copy();
+        copy.clear(2);
+        assertTrue(original.get(2));
+        assertFalse(copy.get(2));
+        assertFalse(copy.isEmpty());
+    }
+}
@@ -0,0 +1,55 @@
+package student;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Assertions shared by the tests of tables built incrementally.
+ */
+final class TableAssertions {
+
+    private TableAssertions() {
+    }
+
+    /**
+     * Checks that the orders of a table, merged or read back, are those a fresh build of its
+     * games gives: the sort order of every sortable column, the name order and, if indexed, the
+     * rows the name index finds for each name.
+     */
+    static void assertSameAsRebuilt(GameTable table) {
+        List<BoardGame> games = new ArrayList<>();
+        for (int row = 0; row < table.size(); row++) {
+            games.add(table.getGame(row));
+        }
+        GameTable rebuilt = GameTable.fromGames(games).buildIndexes();
+        for (GameData col : GameData.values()) {
+            if (GameTable.isSortable(col)) {
+                assertArrayEquals(rebuilt.getSortOrder(col).rows(), table.getSortOrder(col).rows(),
+                        col.toString());
+            }
+        }
+        assertEquals(lowerNames(rebuilt, rebuilt.getNameOrder()),
+                lowerNames(table, table.getNameOrder()), "name order");
+        if (table.hasIndexes()) {
+            for (int id : table.getNameOrder()) {
+                String name = table.getLowerDictionaryName(id);
+                assertArrayEquals(rows(rebuilt, name), rows(table, name), name);
+            }
+        }
+    }
+
+    private static List<String> lowerNames(GameTable table, int[] nameIds) {
+        List<String> names = new ArrayList<>();
+        for (int id : nameIds) {
+            names.add(table.getLowerDictionaryName(id));
+        }
+        return names;
+    }
+
+    private static int[] rows(GameTable table, String lowerName) {
+        NameIndex index = table.getNameIndex();
+        return index.rows(index.equalTo(lowerName), table.size()).toArray();
+    }
+}